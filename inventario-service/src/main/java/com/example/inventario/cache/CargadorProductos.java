@@ -0,0 +1,138 @@
+package com.example.inventario.cache;
+
+import com.example.inventario.dto.ProductoApiResponse;
+import com.example.inventario.dto.ProductoResponse;
+import com.example.inventario.dto.ProductosApiResponse;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Agrupa las consultas de productos de una en una que llegan casi a la vez (al estilo de un data
+ * loader): la primera de un lote programa el envío pasado la ventana, las siguientes se suman y,
+ * al enviarse, todas se resuelven con una sola consulta por IDs. Un lote con un único ID usa la
+ * consulta individual. Si el lote llega al máximo se envía sin esperar.
+ *
+ * <p>Métricas: tamaño de cada lote en {@code productos.cargador.lote} y consultas individuales
+ * evitadas en {@code productos.cargador.llamadas.ahorradas}.</p>
+ */
+class CargadorProductos {
+
+    private final Function<Long, ProductoApiResponse> consultaIndividual;
+    private final Function<List<Long>, ProductosApiResponse> consultaVarios;
+    private final Executor executor;
+    private final Executor diferido;
+    private final int maximoLote;
+    private final DistributionSummary tamanoLote;
+    private final Counter llamadasAhorradas;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<Long, CompletableFuture<Optional<ProductoResponse>>> pendientes = new LinkedHashMap<>();
+
+    /**
+     * @param executor donde se hace el envío cuando el lote se llena
+     * @param diferido donde se hace el envío de un lote que no se llena; debe esperar la ventana
+     *                 antes de ejecutar
+     */
+    CargadorProductos(Function<Long, ProductoApiResponse> consultaIndividual,
+                      Function<List<Long>, ProductosApiResponse> consultaVarios,
+                      Executor executor, Executor diferido, int maximoLote, MeterRegistry registry) {
+        this.consultaIndividual = consultaIndividual;
+        this.consultaVarios = consultaVarios;
+        this.executor = executor;
+        this.diferido = diferido;
+        this.maximoLote = maximoLote;
+        this.tamanoLote = DistributionSummary.builder("productos.cargador.lote")
+                .description("Productos pedidos a productos-service en cada envío del cargador")
+                .register(registry);
+        this.llamadasAhorradas = Counter.builder("productos.cargador.llamadas.ahorradas")
+                .description("Consultas individuales a productos-service evitadas al agrupar")
+                .register(registry);
+    }
+
+    /**
+     * Producto por ID, vacío si no existe; quien pida el mismo ID en la misma ventana comparte
+     * la consulta.
+     */
+    CompletableFuture<Optional<ProductoResponse>> cargar(Long productoId) {
+        Map<Long, CompletableFuture<Optional<ProductoResponse>>> lleno = null;
+        Map<Long, CompletableFuture<Optional<ProductoResponse>>> nuevo = null;
+        CompletableFuture<Optional<ProductoResponse>> resultado;
+        lock.lock();
+        try {
+            resultado = pendientes.get(productoId);
+            if (resultado == null) {
+                resultado = new CompletableFuture<>();
+                pendientes.put(productoId, resultado);
+                if (pendientes.size() >= maximoLote) {
+                    lleno = pendientes;
+                    pendientes = new LinkedHashMap<>();
+                } else if (pendientes.size() == 1) {
+                    nuevo = pendientes;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (lleno != null) {
+            Map<Long, CompletableFuture<Optional<ProductoResponse>>> lote = lleno;
+            executor.execute(() -> enviar(lote));
+        } else if (nuevo != null) {
+            Map<Long, CompletableFuture<Optional<ProductoResponse>>> lote = nuevo;
+            diferido.execute(() -> enviarSiSigue(lote));
+        }
+        return resultado;
+    }
+
+    // Si el lote ya se envió por llenarse, el envío programado no tiene nada que hacer
+    private void enviarSiSigue(Map<Long, CompletableFuture<Optional<ProductoResponse>>> lote) {
+        lock.lock();
+        try {
+            if (pendientes != lote) {
+                return;
+            }
+            pendientes = new LinkedHashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        enviar(lote);
+    }
+
+    private void enviar(Map<Long, CompletableFuture<Optional<ProductoResponse>>> lote) {
+        tamanoLote.record(lote.size());
+        llamadasAhorradas.increment(lote.size() - 1);
+        try {
+            if (lote.size() == 1) {
+                Map.Entry<Long, CompletableFuture<Optional<ProductoResponse>>> unico = lote.entrySet().iterator().next();
+                unico.getValue().complete(consultarUno(unico.getKey()));
+                return;
+            }
+            Map<Long, ProductoResponse> encontrados = new HashMap<>();
+            List<ProductoApiResponse.Data> data = consultaVarios.apply(List.copyOf(lote.keySet())).getData();
+            if (data != null) {
+                data.forEach(producto -> encontrados.put(Long.valueOf(producto.getId()), producto.getAttributes()));
+            }
+            lote.forEach((productoId, resultado) -> resultado.complete(Optional.ofNullable(encontrados.get(productoId))));
+        } catch (RuntimeException ex) {
+            lote.values().forEach(resultado -> resultado.completeExceptionally(ex));
+        }
+    }
+
+    private Optional<ProductoResponse> consultarUno(Long productoId) {
+        try {
+            return Optional.of(consultaIndividual.apply(productoId).getData().getAttributes());
+        } catch (FeignException.NotFound ex) {
+            return Optional.empty();
+        }
+    }
+}
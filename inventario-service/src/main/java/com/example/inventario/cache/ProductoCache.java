@@ -0,0 +1,189 @@
+package com.example.inventario.cache;
+
+import com.example.inventario.dto.ProductoApiResponse;
+import com.example.inventario.dto.ProductoResponse;
+import com.example.inventario.feign.ProductoClient;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de productos consultados a productos-service, delante de {@link ProductoClient}.
+ *
+ * <ul>
+ *   <li>Pasado {@code productos.cache.refresco} desde la última carga, la siguiente lectura
+ *   devuelve el valor cacheado y lanza la recarga en segundo plano: los productos consultados
+ *   a menudo no vuelven a pagar la llamada remota.</li>
+ *   <li>Si la recarga falla (productos-service caído o lento) se sigue sirviendo el valor
+ *   anterior hasta {@code productos.cache.maximo-obsoleto}.</li>
+ *   <li>Un 404 se guarda como "no existe" durante {@code productos.cache.ttl-negativo}.</li>
+ * </ul>
+ *
+ * <p>Las cargas se ejecutan en hilos virtuales y las lecturas simultáneas de un mismo ID
+ * comparten la misma llamada. Las cargas de un solo ID pasan por {@link CargadorProductos},
+ * que junta las que llegan dentro de {@code productos.cargador.ventana} en una consulta por
+ * IDs. Al pedir varios a la vez, los que faltan se traen con una sola consulta por IDs, en
+ * bloques de {@value #TAMANO_BLOQUE}. Métricas: {@code cache.*} con {@code cache=productos},
+ * la antigüedad de lo servido en {@code productos.cache.antiguedad} y lo servido pasado el
+ * periodo de refresco en {@code productos.cache.obsoletas}.</p>
+ */
+@Component
+public class ProductoCache {
+
+    // Acota la longitud de la URL de la consulta por IDs
+    static final int TAMANO_BLOQUE = 200;
+
+    private final AsyncLoadingCache<Long, ProductoCacheado> cache;
+    private final ProductoClient productoClient;
+    private final CargadorProductos cargador;
+    private final Ticker ticker;
+    private final long refrescoNanos;
+    private final Timer antiguedad;
+    private final Counter obsoletas;
+
+    @Value("${productos.api.key}")
+    private String productosApiKey;
+
+    @Autowired
+    public ProductoCache(ProductoClient productoClient, MeterRegistry registry, SimpleAsyncTaskExecutorBuilder executorBuilder,
+                         @Value("${productos.cache.maximo-entradas:10000}") long maximoEntradas,
+                         @Value("${productos.cache.refresco:1m}") Duration refresco,
+                         @Value("${productos.cache.maximo-obsoleto:1h}") Duration maximoObsoleto,
+                         @Value("${productos.cache.ttl-negativo:30s}") Duration ttlNegativo,
+                         @Value("${productos.cargador.ventana:2ms}") Duration ventanaCargador,
+                         @Value("${productos.cargador.maximo-lote:100}") int maximoLoteCargador) {
+        // La espera es de red: un hilo virtual por carga, sin depender de spring.threads.virtual.enabled
+        this(productoClient, registry, executorBuilder.virtualThreads(true).threadNamePrefix("consulta-producto-").build(),
+                Ticker.systemTicker(), maximoEntradas, refresco, maximoObsoleto, ttlNegativo, ventanaCargador, maximoLoteCargador);
+    }
+
+    ProductoCache(ProductoClient productoClient, MeterRegistry registry, Executor executor, Ticker ticker,
+                  long maximoEntradas, Duration refresco, Duration maximoObsoleto, Duration ttlNegativo,
+                  Duration ventanaCargador, int maximoLoteCargador) {
+        this.productoClient = productoClient;
+        this.ticker = ticker;
+        // Con ventana cero se agrupa solo lo que llegue antes de que el executor tome el envío
+        Executor diferido = ventanaCargador.isZero()
+                ? executor
+                : CompletableFuture.delayedExecutor(ventanaCargador.toNanos(), TimeUnit.NANOSECONDS, executor);
+        this.cargador = new CargadorProductos(
+                productoId -> productoClient.obtenerProductoPorId(productoId, productosApiKey),
+                productoIds -> productoClient.obtenerProductosPorIds(productoIds, productosApiKey),
+                executor, diferido, Math.min(maximoLoteCargador, TAMANO_BLOQUE), registry);
+        this.refrescoNanos = refresco.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximoEntradas)
+                .expireAfter(Expiry.<Long, ProductoCacheado>writing((id, entrada) ->
+                        entrada.producto() != null ? maximoObsoleto : ttlNegativo))
+                .refreshAfterWrite(refresco)
+                .executor(executor)
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<ProductoCacheado> asyncLoad(Long productoId, Executor executor) {
+                        return cargador.cargar(productoId)
+                                .thenApply(producto -> new ProductoCacheado(producto.orElse(null), ticker.read()));
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<Long, ProductoCacheado>> asyncLoadAll(Set<? extends Long> productoIds,
+                                                                                       Executor executor) {
+                        return CompletableFuture.supplyAsync(() -> cargarVarios(productoIds), executor);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(registry, cache, "productos");
+        this.antiguedad = Timer.builder("productos.cache.antiguedad")
+                .description("Tiempo desde que se obtuvo de productos-service el producto servido")
+                .register(registry);
+        this.obsoletas = Counter.builder("productos.cache.obsoletas")
+                .description("Productos servidos pasado el periodo de refresco (recarga pendiente o fallida)")
+                .register(registry);
+    }
+
+    public void setProductosApiKey(String productosApiKey) {
+        this.productosApiKey = productosApiKey;
+    }
+
+    /**
+     * Producto por ID; vacío si productos-service respondió 404. Se completa al momento si
+     * está en caché; si no, con la llamada remota, o con su FeignException si falla.
+     */
+    public CompletableFuture<Optional<ProductoResponse>> obtener(Long productoId) {
+        // Se encadena sobre la entrada compartida: quien cancele su espera no cancela la carga de los demás
+        return cache.get(productoId).thenApply(this::servir);
+    }
+
+    /**
+     * Varios productos por ID, con la misma semántica que {@link #obtener(Long)} para cada uno.
+     * Los que no están en caché se piden juntos; si esa consulta falla, falla el conjunto.
+     */
+    public CompletableFuture<Map<Long, Optional<ProductoResponse>>> obtenerVarios(Collection<Long> productoIds) {
+        return cache.getAll(productoIds).thenApply(entradas -> {
+            Map<Long, Optional<ProductoResponse>> productos = new LinkedHashMap<>();
+            entradas.forEach((id, entrada) -> productos.put(id, servir(entrada)));
+            return productos;
+        });
+    }
+
+    public CacheStats estadisticas() {
+        return cache.synchronous().stats();
+    }
+
+    private Map<Long, ProductoCacheado> cargarVarios(Set<? extends Long> productoIds) {
+        List<Long> ids = new ArrayList<>(productoIds);
+        Map<Long, ProductoCacheado> cargados = new HashMap<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += TAMANO_BLOQUE) {
+            List<Long> bloque = ids.subList(inicio, Math.min(inicio + TAMANO_BLOQUE, ids.size()));
+            List<ProductoApiResponse.Data> data = productoClient.obtenerProductosPorIds(bloque, productosApiKey).getData();
+            long obtenido = ticker.read();
+            if (data != null) {
+                for (ProductoApiResponse.Data producto : data) {
+                    cargados.put(Long.valueOf(producto.getId()), new ProductoCacheado(producto.getAttributes(), obtenido));
+                }
+            }
+            // Los que no vuelven no existen: se cachean como 404
+            for (Long id : bloque) {
+                cargados.putIfAbsent(id, new ProductoCacheado(null, obtenido));
+            }
+        }
+        return cargados;
+    }
+
+    private Optional<ProductoResponse> servir(ProductoCacheado entrada) {
+        long edad = ticker.read() - entrada.obtenido();
+        antiguedad.record(edad, TimeUnit.NANOSECONDS);
+        if (edad > refrescoNanos) {
+            obsoletas.increment();
+        }
+        return Optional.ofNullable(entrada.producto());
+    }
+
+    // producto null: productos-service respondió 404
+    private record ProductoCacheado(ProductoResponse producto, long obtenido) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.inventario.config;
+
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Cliente HTTP compartido por el cliente Feign de productos y el {@code RestTemplate}.
+ * Por defecto es un pool de conexiones persistentes de Apache HttpClient 5, con límite total y
+ * por ruta, expulsión de conexiones inactivas y métricas del pool en
+ * {@code /actuator/metrics/httpcomponents.httpclient.pool.*}. Con {@code cliente-http.h2c=true}
+ * se usa en su lugar el cliente del JDK con HTTP/2 sin TLS, que multiplexa las peticiones
+ * sobre una conexión por destino (productos-service debe tener {@code server.http2.enabled=true}).
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "cliente-http.h2c", havingValue = "false", matchIfMissing = true)
+    static class PoolConexiones {
+
+        @Value("${cliente-http.maximo-conexiones:200}")
+        private int maximoConexiones;
+
+        @Value("${cliente-http.maximo-conexiones-por-ruta:50}")
+        private int maximoConexionesPorRuta;
+
+        @Value("${cliente-http.timeout-conexion:3s}")
+        private Duration timeoutConexion;
+
+        @Value("${cliente-http.timeout-lectura:5s}")
+        private Duration timeoutLectura;
+
+        @Value("${cliente-http.timeout-pool:1s}")
+        private Duration timeoutPool;
+
+        @Value("${cliente-http.keep-alive:30s}")
+        private Duration keepAlive;
+
+        @Value("${cliente-http.inactividad-maxima:30s}")
+        private Duration inactividadMaxima;
+
+        @Bean
+        public PoolingHttpClientConnectionManager conexionesHttp() {
+            return PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(maximoConexiones)
+                    .setMaxConnPerRoute(maximoConexionesPorRuta)
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.of(timeoutConexion))
+                            .setSocketTimeout(Timeout.of(timeoutLectura))
+                            // Se comprueba antes de reutilizar una conexión que lleva un rato parada
+                            .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                            .build())
+                    .build();
+        }
+
+        @Bean(destroyMethod = "close")
+        public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager conexionesHttp) {
+            return HttpClients.custom()
+                    .setConnectionManager(conexionesHttp)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.of(timeoutPool))
+                            .setResponseTimeout(Timeout.of(timeoutLectura))
+                            // Por debajo del keep-alive de Tomcat (60 s) para no reutilizar conexiones que el servidor ya cerró
+                            .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                            .build())
+                    .evictIdleConnections(TimeValue.of(inactividadMaxima))
+                    .evictExpiredConnections()
+                    .build();
+        }
+
+        @Bean
+        public Client feignClient(CloseableHttpClient httpClient) {
+            return new ApacheHttp5Client(httpClient);
+        }
+
+        @Bean
+        public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient httpClient) {
+            return new HttpComponentsClientHttpRequestFactory(httpClient);
+        }
+
+        @Bean
+        public MeterBinder metricasConexionesHttp(PoolingHttpClientConnectionManager conexionesHttp) {
+            return new PoolingHttpClientConnectionManagerMetricsBinder(conexionesHttp, "cliente-http");
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "cliente-http.h2c", havingValue = "true")
+    static class H2c {
+
+        @Value("${cliente-http.timeout-conexion:3s}")
+        private Duration timeoutConexion;
+
+        @Value("${cliente-http.timeout-lectura:5s}")
+        private Duration timeoutLectura;
+
+        @Bean
+        public HttpClient httpClientH2c() {
+            return HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(timeoutConexion)
+                    .build();
+        }
+
+        @Bean
+        public Client feignClient(HttpClient httpClientH2c) {
+            return new Http2Client(httpClientH2c);
+        }
+
+        @Bean
+        public ClientHttpRequestFactory clientHttpRequestFactory(HttpClient httpClientH2c) {
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClientH2c);
+            factory.setReadTimeout(timeoutLectura);
+            return factory;
+        }
+    }
+}
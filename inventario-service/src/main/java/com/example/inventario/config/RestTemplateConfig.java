@@ -2,16 +2,14 @@ package com.example.inventario.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(3000); // 3 segundos
-        factory.setReadTimeout(3000);    // 3 segundos
-        return new RestTemplate(factory);
+    public RestTemplate restTemplate(ClientHttpRequestFactory clientHttpRequestFactory) {
+        // Conexiones y timeouts en HttpClientConfig (cliente-http.*)
+        return new RestTemplate(clientHttpRequestFactory);
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.example.inventario.controller;
 
 import com.example.inventario.dto.InventarioDTO;
 import com.example.inventario.dto.InventarioResponse;
+import com.example.inventario.jsonapi.JsonApiCollectionResponse;
 import com.example.inventario.jsonapi.JsonApiResponse;
 import com.example.inventario.service.InventarioService;
 
@@ -12,6 +13,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "Inventarios", description = "Operaciones sobre inventarios")
 @RestController
 @RequestMapping("/api/inventario")
@@ -27,6 +30,13 @@ public class InventarioController {
         return ResponseEntity.ok(response);
     }
     
+    @Operation(summary = "Consultar inventario de varios productos", description = "Consulta el inventario de varios productos "
+            + "en una sola petición; los productos que no se pueden resolver se informan en meta.errores")
+    @GetMapping(params = "productoIds")
+    public ResponseEntity<JsonApiCollectionResponse<InventarioResponse>> consultarInventarios(@RequestParam List<Long> productoIds) {
+        return ResponseEntity.ok(inventarioService.consultarInventarios(productoIds));
+    }
+
     @Operation(summary = "Actualizar inventario", description = "Actualizar inventario")
     @PutMapping
     public ResponseEntity<JsonApiResponse<InventarioResponse>> actualizarInventario(
@@ -35,6 +45,14 @@ public class InventarioController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Reservar varios productos", description = "Reserva todas las líneas en una sola transacción, "
+            + "o ninguna si alguna no tiene inventario o stock suficiente")
+    @PutMapping("/batch")
+    public ResponseEntity<JsonApiCollectionResponse<InventarioResponse>> reservarLote(
+            @RequestBody List<@Valid InventarioDTO> lineas) {
+        return ResponseEntity.ok(inventarioService.reservarLote(lineas));
+    }
+
     @Operation(summary = "Crear inventario", description = "Crear inventario")
     @PostMapping
     public ResponseEntity<JsonApiResponse<InventarioResponse>> crearInventario(
@@ -16,6 +16,7 @@ public class InventarioDTO {
     @Schema(description = "Id del producto", example = "1")
     private Long productoId;
     
+    @NotNull(message = "La cantidad no puede ser nula")
     @Min(value = 0, message = "La cantidad no puede ser negativa")
     @Schema(description = "Cantidad del producto", example = "10")
     private Integer cantidad;
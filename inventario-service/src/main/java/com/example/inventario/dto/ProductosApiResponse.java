@@ -0,0 +1,15 @@
+package com.example.inventario.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProductosApiResponse {
+    private List<ProductoApiResponse.Data> data;
+    private Map<String, Object> meta;
+
+    public List<ProductoApiResponse.Data> getData() { return data; }
+    public void setData(List<ProductoApiResponse.Data> data) { this.data = data; }
+
+    public Map<String, Object> getMeta() { return meta; }
+    public void setMeta(Map<String, Object> meta) { this.meta = meta; }
+}
@@ -2,10 +2,14 @@ package com.example.inventario.exception;
 
 import com.example.inventario.jsonapi.JsonApiError;
 import feign.FeignException;
+import org.springframework.context.MessageSourceResolvable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+
+import java.util.stream.Collectors;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -20,6 +24,49 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(SolicitudInvalidaException.class)
+    public ResponseEntity<JsonApiError> handleSolicitudInvalida(SolicitudInvalidaException ex) {
+        JsonApiError error = new JsonApiError(
+                "Bad Request",
+                ex.getMessage(),
+                "400"
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<JsonApiError> handleMethodValidation(HandlerMethodValidationException ex) {
+        JsonApiError error = new JsonApiError(
+                "Bad Request",
+                ex.getAllErrors().stream()
+                        .map(MessageSourceResolvable::getDefaultMessage)
+                        .distinct()
+                        .collect(Collectors.joining("; ")),
+                "400"
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<JsonApiError> handleStockInsuficiente(StockInsuficienteException ex) {
+        JsonApiError error = new JsonApiError(
+                "Insufficient Stock",
+                ex.getMessage(),
+                "409"
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(ServicioNoDisponibleException.class)
+    public ResponseEntity<JsonApiError> handleServicioNoDisponible(ServicioNoDisponibleException ex) {
+        JsonApiError error = new JsonApiError(
+                "Service Unavailable",
+                ex.getMessage(),
+                "503"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     @ExceptionHandler(FeignException.class)
     public ResponseEntity<JsonApiError> handleFeignException(FeignException ex) {
         JsonApiError error = new JsonApiError(
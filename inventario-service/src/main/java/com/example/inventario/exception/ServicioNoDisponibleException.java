@@ -0,0 +1,7 @@
+package com.example.inventario.exception;
+
+public class ServicioNoDisponibleException extends RuntimeException {
+    public ServicioNoDisponibleException(String message) {
+        super(message);
+    }
+}
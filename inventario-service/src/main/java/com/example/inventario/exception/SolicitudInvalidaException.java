@@ -0,0 +1,7 @@
+package com.example.inventario.exception;
+
+public class SolicitudInvalidaException extends RuntimeException {
+    public SolicitudInvalidaException(String message) {
+        super(message);
+    }
+}
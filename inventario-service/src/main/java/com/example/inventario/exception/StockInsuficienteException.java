@@ -0,0 +1,7 @@
+package com.example.inventario.exception;
+
+public class StockInsuficienteException extends RuntimeException {
+    public StockInsuficienteException(String message) {
+        super(message);
+    }
+}
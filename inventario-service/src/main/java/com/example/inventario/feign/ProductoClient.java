@@ -1,10 +1,14 @@
 package com.example.inventario.feign;
 
 import com.example.inventario.dto.ProductoApiResponse;
+import com.example.inventario.dto.ProductosApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
 
 @FeignClient(name = "productos-service", url = "http://productos-service:8080")
 public interface ProductoClient {
@@ -14,4 +18,11 @@ public interface ProductoClient {
         @PathVariable Long id,
         @RequestHeader("X-API-KEY") String apiKey // <-- Cambia aquí el nombre del header
     );
-}
\ No newline at end of file
+
+    /** Varios productos en una sola llamada; los IDs inexistentes vienen en meta.idsNoEncontrados. */
+    @GetMapping("/api/productos")
+    ProductosApiResponse obtenerProductosPorIds(
+        @RequestParam("ids") Collection<Long> ids,
+        @RequestHeader("X-API-KEY") String apiKey
+    );
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "inventarios")
+// Índice único: las reservas localizan y bloquean una sola fila por producto_id
+@Table(name = "inventarios",
+        indexes = @Index(name = "ux_inventarios_producto_id", columnList = "producto_id", unique = true))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,25 @@
+package com.example.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Última secuencia del journal de reservas en memoria ya aplicada a la base de datos.
+ * Se actualiza en la misma transacción que las cantidades, de modo que al reproducir el
+ * journal tras una caída no se aplica dos veces ninguna reserva.
+ */
+@Entity
+@Table(name = "inventario_volcados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VolcadoReservas {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long secuencia;
+}
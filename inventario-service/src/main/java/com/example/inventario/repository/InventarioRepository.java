@@ -1,12 +1,24 @@
 package com.example.inventario.repository;
 
 import com.example.inventario.model.Inventario;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventarioRepository extends JpaRepository<Inventario, Long> {
+public interface InventarioRepository extends JpaRepository<Inventario, Long>, InventarioRepositoryCustom {
     Optional<Inventario> findByProductoId(Long productoId);
-}
\ No newline at end of file
+
+    List<Inventario> findByProductoIdIn(Collection<Long> productoIds);
+
+    /** Lee las filas bloqueándolas para escritura hasta el final de la transacción. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventario i where i.productoId in :productoIds")
+    List<Inventario> bloquearPorProductoIds(Collection<Long> productoIds);
+}
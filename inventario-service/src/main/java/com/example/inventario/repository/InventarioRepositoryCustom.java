@@ -0,0 +1,35 @@
+package com.example.inventario.repository;
+
+import com.example.inventario.model.Inventario;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface InventarioRepositoryCustom {
+
+    /**
+     * Reserva {@code cantidad} unidades del producto con una única sentencia condicional:
+     * solo modifica la fila si queda disponible suficiente, así que reservas simultáneas
+     * nunca dejan la cantidad disponible en negativo.
+     *
+     * @return la fila ya actualizada, o vacío si no hay inventario o no alcanza la cantidad
+     */
+    Optional<Inventario> reservar(Long productoId, int cantidad);
+
+    /**
+     * Reserva varias líneas (producto → unidades) con un lote de sentencias condicionales como la
+     * de {@link #reservar}, en orden de producto. No deshace nada: si alguna falla, quien llama
+     * debe revertir la transacción. Que el orden evite interbloqueos depende del índice único
+     * sobre {@code producto_id} (ver {@link Inventario}): sin él cada sentencia recorre la tabla.
+     *
+     * @return los productos cuya fila no se modificó (sin inventario o sin bastante disponible)
+     */
+    List<Long> reservarLote(Map<Long, Integer> reservas);
+
+    /**
+     * Aplica reservas ya validadas (producto → unidades) en un solo lote de sentencias, sin
+     * condición sobre la cantidad disponible.
+     */
+    void aplicarReservas(Map<Long, Long> reservas);
+}
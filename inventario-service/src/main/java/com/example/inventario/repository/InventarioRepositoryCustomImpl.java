@@ -0,0 +1,80 @@
+package com.example.inventario.repository;
+
+import com.example.inventario.model.Inventario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class InventarioRepositoryCustomImpl implements InventarioRepositoryCustom {
+
+    // La comprobación y la resta van en la misma sentencia; OUTPUT devuelve la fila resultante sin otro SELECT
+    private static final String RESERVAR = "UPDATE inventarios"
+            + " SET cantidad_disponible = cantidad_disponible - :cantidad,"
+            + " cantidad_reservada = cantidad_reservada + :cantidad"
+            + " OUTPUT inserted.id, inserted.producto_id, inserted.cantidad_disponible, inserted.cantidad_reservada"
+            + " WHERE producto_id = :productoId AND cantidad_disponible >= :cantidad";
+
+    private static final String RESERVAR_SI_ALCANZA = "UPDATE inventarios"
+            + " SET cantidad_disponible = cantidad_disponible - :cantidad,"
+            + " cantidad_reservada = cantidad_reservada + :cantidad"
+            + " WHERE producto_id = :productoId AND cantidad_disponible >= :cantidad";
+
+    private static final String APLICAR = "UPDATE inventarios"
+            + " SET cantidad_disponible = cantidad_disponible - :cantidad,"
+            + " cantidad_reservada = cantidad_reservada + :cantidad"
+            + " WHERE producto_id = :productoId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Inventario> reservar(Long productoId, int cantidad) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("productoId", productoId)
+                .addValue("cantidad", cantidad);
+        return jdbcTemplate.query(RESERVAR, parametros, (rs, fila) -> Inventario.builder()
+                        .id(rs.getLong("id"))
+                        .productoId(rs.getLong("producto_id"))
+                        .cantidadDisponible(rs.getInt("cantidad_disponible"))
+                        .cantidadReservada(rs.getInt("cantidad_reservada"))
+                        .build())
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Long> reservarLote(Map<Long, Integer> reservas) {
+        // En orden de producto: dos lotes que se solapan toman los bloqueos de fila en el mismo orden
+        List<Long> productoIds = new ArrayList<>(new TreeMap<>(reservas).keySet());
+        MapSqlParameterSource[] lote = productoIds.stream()
+                .map(productoId -> new MapSqlParameterSource()
+                        .addValue("productoId", productoId)
+                        .addValue("cantidad", reservas.get(productoId)))
+                .toArray(MapSqlParameterSource[]::new);
+        int[] filas = jdbcTemplate.batchUpdate(RESERVAR_SI_ALCANZA, lote);
+        List<Long> fallidos = new ArrayList<>();
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                fallidos.add(productoIds.get(i));
+            }
+        }
+        return fallidos;
+    }
+
+    @Override
+    public void aplicarReservas(Map<Long, Long> reservas) {
+        // Siempre en el mismo orden de producto, para que dos lotes no se bloqueen mutuamente
+        MapSqlParameterSource[] lote = new TreeMap<>(reservas).entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("productoId", e.getKey())
+                        .addValue("cantidad", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(APLICAR, lote);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.inventario.repository;
+
+import com.example.inventario.model.VolcadoReservas;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VolcadoReservasRepository extends JpaRepository<VolcadoReservas, Integer> {
+}
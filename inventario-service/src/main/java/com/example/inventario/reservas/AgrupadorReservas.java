@@ -0,0 +1,204 @@
+package com.example.inventario.reservas;
+
+import com.example.inventario.exception.ServicioNoDisponibleException;
+import com.example.inventario.model.Inventario;
+import com.example.inventario.repository.InventarioRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Agrupa las reservas que llegan a la vez para confirmarlas con un solo commit (group commit).
+ * Un único hilo toma lo que haya en cola, hasta {@code inventario.agrupacion.maximo-lote}
+ * solicitudes, esperando como mucho {@code inventario.agrupacion.ventana} a que llegue más; mientras
+ * un lote está en la base de datos, las siguientes solicitudes se acumulan para el próximo.
+ *
+ * <p>Cada lote es una transacción: bloquea las filas de sus productos, decide cada solicitud en
+ * orden de llegada contra la cantidad disponible que van dejando las anteriores y aplica una sola
+ * actualización por producto. Cada llamante recibe su propio resultado tras el commit: el
+ * inventario justo después de su reserva, o vacío si no había bastante o no hay inventario.</p>
+ *
+ * <p>Ninguna solicitud espera indefinidamente en cola. Si en
+ * {@code inventario.agrupacion.tiempo-maximo} ningún lote la ha tomado, se retira de la cola y
+ * falla con {@link ServicioNoDisponibleException} sin haber tocado la base de datos. Una vez la
+ * toma un lote, el llamante recibe siempre el resultado real del commit. Parado el hilo, por
+ * detención o por un error, las solicitudes nuevas se rechazan igual.</p>
+ */
+@Slf4j
+@Component
+public class AgrupadorReservas {
+
+    private record Solicitud(Long productoId, int cantidad, CompletableFuture<Optional<Inventario>> resultado) {
+    }
+
+    private final boolean habilitado;
+    private final Duration ventana;
+    private final int maximoLote;
+    private final Duration tiempoMaximo;
+    private final InventarioRepository inventarioRepository;
+    private final TransactionTemplate transaccion;
+    private final DistributionSummary tamanoLote;
+    private final BlockingQueue<Solicitud> cola = new LinkedBlockingQueue<>();
+    // Retira de la cola las solicitudes que agotan su espera; la tarea se cancela si un lote llega antes
+    private final ScheduledThreadPoolExecutor plazos = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("plazos-reservas").daemon().factory());
+    private Thread agrupador;
+    private volatile boolean detenido;
+
+    public AgrupadorReservas(@Value("${inventario.agrupacion.habilitada:false}") boolean habilitado,
+                             @Value("${inventario.agrupacion.ventana:2ms}") Duration ventana,
+                             @Value("${inventario.agrupacion.maximo-lote:256}") int maximoLote,
+                             @Value("${inventario.agrupacion.tiempo-maximo:5s}") Duration tiempoMaximo,
+                             InventarioRepository inventarioRepository, PlatformTransactionManager transactionManager,
+                             MeterRegistry registry) {
+        this.habilitado = habilitado;
+        this.ventana = ventana;
+        this.maximoLote = maximoLote;
+        this.tiempoMaximo = tiempoMaximo;
+        this.inventarioRepository = inventarioRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.plazos.setRemoveOnCancelPolicy(true);
+        this.tamanoLote = DistributionSummary.builder("inventario.reservas.lote")
+                .description("Reservas confirmadas por cada commit del agrupador")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (habilitado) {
+            agrupador = Thread.ofPlatform().name("agrupador-reservas").daemon().start(this::agrupar);
+        }
+    }
+
+    public boolean isActivo() {
+        return agrupador != null && !detenido;
+    }
+
+    /**
+     * Encola la reserva; el futuro se completa tras el commit del lote en el que entre, o falla con
+     * {@link ServicioNoDisponibleException} si el agrupador está parado o ningún lote la toma en
+     * {@code inventario.agrupacion.tiempo-maximo}.
+     */
+    public CompletableFuture<Optional<Inventario>> reservar(Long productoId, int cantidad) {
+        CompletableFuture<Optional<Inventario>> resultado = new CompletableFuture<>();
+        Solicitud solicitud = new Solicitud(productoId, cantidad, resultado);
+        cola.add(solicitud);
+        // Si el hilo ya vació la cola al parar, nadie la tomará: se retira y se rechaza
+        if (detenido && cola.remove(solicitud)) {
+            resultado.completeExceptionally(new ServicioNoDisponibleException("El agrupador de reservas está detenido"));
+            return resultado;
+        }
+        // Solo falla si sigue en cola: si un lote ya la tomó, remove no la encuentra y manda el commit
+        ScheduledFuture<?> plazo = plazos.schedule(() -> {
+            if (cola.remove(solicitud)) {
+                resultado.completeExceptionally(new ServicioNoDisponibleException(
+                        "La reserva no se atendió en " + tiempoMaximo.toMillis() + " ms"));
+            }
+        }, tiempoMaximo.toNanos(), TimeUnit.NANOSECONDS);
+        resultado.whenComplete((inventario, error) -> plazo.cancel(false));
+        return resultado;
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        if (agrupador != null) {
+            agrupador.interrupt();
+            agrupador.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        plazos.shutdownNow();
+    }
+
+    private void agrupar() {
+        List<Solicitud> lote = new ArrayList<>(maximoLote);
+        try {
+            while (true) {
+                lote.add(cola.take());
+                cola.drainTo(lote, maximoLote - lote.size());
+                long limite = System.nanoTime() + ventana.toNanos();
+                while (lote.size() < maximoLote) {
+                    Solicitud siguiente = cola.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                    cola.drainTo(lote, maximoLote - lote.size());
+                }
+                confirmar(lote);
+                lote.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            detenido = true;
+            cola.drainTo(lote);
+            lote.forEach(s -> s.resultado().completeExceptionally(
+                    new ServicioNoDisponibleException("El agrupador de reservas está detenido")));
+        }
+    }
+
+    private void confirmar(List<Solicitud> lote) {
+        Map<Solicitud, Optional<Inventario>> resultados;
+        try {
+            resultados = transaccion.execute(status -> decidir(lote));
+        } catch (RuntimeException ex) {
+            log.error("Fallo al confirmar un lote de {} reservas", lote.size(), ex);
+            lote.forEach(s -> s.resultado().completeExceptionally(ex));
+            return;
+        }
+        tamanoLote.record(lote.size());
+        resultados.forEach((solicitud, resultado) -> solicitud.resultado().complete(resultado));
+    }
+
+    private Map<Solicitud, Optional<Inventario>> decidir(List<Solicitud> lote) {
+        Map<Long, Inventario> filas = inventarioRepository
+                .bloquearPorProductoIds(lote.stream().map(Solicitud::productoId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Inventario::getProductoId, fila -> fila));
+        // Cantidades tras cada reserva aceptada; las entidades leídas no se tocan para que Hibernate no las vuelque
+        Map<Long, int[]> cantidades = new HashMap<>();
+        Map<Long, Long> totales = new HashMap<>();
+        Map<Solicitud, Optional<Inventario>> resultados = new LinkedHashMap<>();
+        for (Solicitud solicitud : lote) {
+            Inventario fila = filas.get(solicitud.productoId());
+            if (fila == null) {
+                resultados.put(solicitud, Optional.empty());
+                continue;
+            }
+            int[] actual = cantidades.computeIfAbsent(solicitud.productoId(),
+                    id -> new int[]{fila.getCantidadDisponible(), fila.getCantidadReservada()});
+            if (actual[0] < solicitud.cantidad()) {
+                resultados.put(solicitud, Optional.empty());
+                continue;
+            }
+            actual[0] -= solicitud.cantidad();
+            actual[1] += solicitud.cantidad();
+            totales.merge(solicitud.productoId(), (long) solicitud.cantidad(), Long::sum);
+            resultados.put(solicitud, Optional.of(new Inventario(fila.getId(), fila.getProductoId(), actual[0], actual[1])));
+        }
+        if (!totales.isEmpty()) {
+            inventarioRepository.aplicarReservas(totales);
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.inventario.reservas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cantidad disponible repartida en franjas independientes, cada una en su propia línea de
+ * caché, para que muchos hilos reserven a la vez sin pelear por una sola variable. Cada
+ * franja se decrementa con CAS y nunca baja de cero, así que la suma tampoco.
+ *
+ * <p>Una reserva prueba primero la franja asociada al hilo y después las demás; si ninguna
+ * tiene bastante por sí sola, junta unidades de varias y las devuelve si no llega. Con el stock
+ * casi agotado, una reserva puede rechazarse mientras otra tiene unidades tomadas a medias.</p>
+ */
+final class ContadorFranjado {
+
+    // 8 longs = 64 bytes: cada franja ocupa una línea de caché distinta
+    private static final int SEPARACION = 8;
+
+    private final AtomicLongArray franjas;
+    private final int numeroFranjas;
+
+    ContadorFranjado(long inicial, int numeroFranjas) {
+        this.numeroFranjas = numeroFranjas;
+        this.franjas = new AtomicLongArray(numeroFranjas * SEPARACION);
+        for (int f = 0; f < numeroFranjas; f++) {
+            franjas.set(f * SEPARACION, inicial / numeroFranjas + (f < inicial % numeroFranjas ? 1 : 0));
+        }
+    }
+
+    boolean reservar(int cantidad) {
+        int propia = franjaDelHilo();
+        for (int k = 0; k < numeroFranjas; k++) {
+            int i = ((propia + k) % numeroFranjas) * SEPARACION;
+            long actual;
+            while ((actual = franjas.get(i)) >= cantidad) {
+                if (franjas.compareAndSet(i, actual, actual - cantidad)) {
+                    return true;
+                }
+            }
+        }
+        return reunir(cantidad);
+    }
+
+    void devolver(int cantidad) {
+        franjas.getAndAdd(franjaDelHilo() * SEPARACION, cantidad);
+    }
+
+    long disponible() {
+        long total = 0;
+        for (int f = 0; f < numeroFranjas; f++) {
+            total += franjas.get(f * SEPARACION);
+        }
+        return total;
+    }
+
+    private boolean reunir(int cantidad) {
+        long[] tomado = new long[numeroFranjas];
+        long falta = cantidad;
+        for (int f = 0; f < numeroFranjas && falta > 0; f++) {
+            int i = f * SEPARACION;
+            long actual;
+            while ((actual = franjas.get(i)) > 0) {
+                long parte = Math.min(actual, falta);
+                if (franjas.compareAndSet(i, actual, actual - parte)) {
+                    tomado[f] = parte;
+                    falta -= parte;
+                    break;
+                }
+            }
+        }
+        if (falta == 0) {
+            return true;
+        }
+        for (int f = 0; f < numeroFranjas; f++) {
+            if (tomado[f] > 0) {
+                franjas.getAndAdd(f * SEPARACION, tomado[f]);
+            }
+        }
+        return false;
+    }
+
+    private int franjaDelHilo() {
+        return (int) (Thread.currentThread().threadId() % numeroFranjas);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.inventario.reservas;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Registro local de solo añadido con las reservas aceptadas en memoria que aún pueden no estar
+ * en la base de datos. Se escribe por segmentos ({@code reservas-N.journal}): al volcar se cierra
+ * el segmento en curso y, cuando el volcado ha hecho commit, se borra. Cada registro lleva un
+ * número de secuencia creciente para saber, tras una caída, cuáles ya se habían volcado.
+ *
+ * <p>Los registros se preparan en memoria y se escriben juntos con {@link #escribir()}, que
+ * los sincroniza con el disco antes de volver, así que sobreviven a la caída del proceso y a la
+ * de la máquina; al agruparlos, la sincronización se paga una vez por lote. No es seguro para
+ * hilos: lo protege quien lo usa.</p>
+ */
+final class JournalReservas implements AutoCloseable {
+
+    private static final String PREFIJO = "reservas-";
+    private static final String SUFIJO = ".journal";
+    // secuencia (long) + productoId (long) + cantidad (int)
+    private static final int TAMANO_REGISTRO = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    record Registro(long secuencia, long productoId, int cantidad) {
+    }
+
+    private final Path directorio;
+    private ByteBuffer buffer = ByteBuffer.allocate(TAMANO_REGISTRO * 64);
+    private int preparados;
+    private final List<Path> segmentosPrevios;
+    private long numeroSegmento;
+    private FileChannel canal;
+    private Path segmento;
+    private long secuencia;
+
+    JournalReservas(Path directorio) throws IOException {
+        this.directorio = Files.createDirectories(directorio);
+        this.segmentosPrevios = listarSegmentos();
+        this.numeroSegmento = segmentosPrevios.isEmpty() ? 0 : numero(segmentosPrevios.getLast());
+    }
+
+    /** Registros de los segmentos que había al abrir, en orden; ignora un último registro a medio escribir. */
+    List<Registro> registrosPrevios() throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        for (Path previo : segmentosPrevios) {
+            ByteBuffer contenido = ByteBuffer.wrap(Files.readAllBytes(previo));
+            while (contenido.remaining() >= TAMANO_REGISTRO) {
+                registros.add(new Registro(contenido.getLong(), contenido.getLong(), contenido.getInt()));
+            }
+        }
+        return registros;
+    }
+
+    /** Empieza a escribir tras {@code ultimaSecuencia}; los segmentos previos quedan pendientes de descartar. */
+    void abrir(long ultimaSecuencia) throws IOException {
+        this.secuencia = ultimaSecuencia;
+        abrirSegmento();
+    }
+
+    List<Path> segmentosPrevios() {
+        return segmentosPrevios;
+    }
+
+    /** Prepara un registro con la siguiente secuencia; no llega al fichero hasta {@link #escribir()}. */
+    void preparar(long productoId, int cantidad) {
+        if (buffer.remaining() < TAMANO_REGISTRO) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+        buffer.putLong(secuencia + ++preparados).putLong(productoId).putInt(cantidad);
+    }
+
+    /**
+     * Escribe de una vez los registros preparados y los sincroniza con el disco. Si falla se
+     * recorta el segmento a como estaba antes del lote, de modo que no quedan registros a medio
+     * escribir, y sus secuencias se vuelven a usar.
+     *
+     * @return la secuencia del último registro escrito
+     */
+    long escribir() throws IOException {
+        buffer.flip();
+        long inicio = canal.size();
+        try {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false);
+            secuencia += preparados;
+            return secuencia;
+        } catch (IOException ex) {
+            try {
+                canal.truncate(inicio);
+            } catch (IOException alRecortar) {
+                ex.addSuppressed(alRecortar);
+            }
+            throw ex;
+        } finally {
+            buffer.clear();
+            preparados = 0;
+        }
+    }
+
+    long ultimaSecuencia() {
+        return secuencia;
+    }
+
+    /** Cierra el segmento en curso, sincronizado con el disco, y abre el siguiente. */
+    Path rotar() throws IOException {
+        Path cerrado = segmento;
+        canal.force(false);
+        canal.close();
+        abrirSegmento();
+        return cerrado;
+    }
+
+    void descartar(List<Path> segmentos) throws IOException {
+        for (Path descartado : segmentos) {
+            Files.deleteIfExists(descartado);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        segmento = directorio.resolve(PREFIJO + (++numeroSegmento) + SUFIJO);
+        canal = FileChannel.open(segmento, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            return ficheros
+                    .filter(f -> f.getFileName().toString().startsWith(PREFIJO) && f.getFileName().toString().endsWith(SUFIJO))
+                    .sorted((a, b) -> Long.compare(numero(a), numero(b)))
+                    .toList();
+        }
+    }
+
+    private static long numero(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - SUFIJO.length()));
+    }
+}
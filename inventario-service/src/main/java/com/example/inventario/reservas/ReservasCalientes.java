@@ -0,0 +1,339 @@
+package com.example.inventario.reservas;
+
+import com.example.inventario.model.Inventario;
+import com.example.inventario.model.VolcadoReservas;
+import com.example.inventario.repository.InventarioRepository;
+import com.example.inventario.repository.VolcadoReservasRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Modo de productos calientes: las reservas de los productos de
+ * {@code inventario.calientes.productos} se validan contra contadores en memoria
+ * ({@link ContadorFranjado}) en lugar de contra la fila, que bajo mucha concurrencia se
+ * convierte en el cuello de botella por sus bloqueos.
+ *
+ * <p>Cada reserva aceptada se anota en el {@link JournalReservas} antes de responder y se
+ * acumula por producto. Las anotaciones se encolan y un único hilo las escribe por lotes, con
+ * una escritura para todo lo que haya en cola (group commit); cada llamante espera a que se
+ * escriba el lote en el que entró. Cada {@code inventario.calientes.intervalo-volcado} se aplican los
+ * acumulados en una transacción junto con la última secuencia volcada; al arrancar se
+ * reproducen los registros del journal posteriores a esa secuencia, de modo que una caída no
+ * pierde ni duplica reservas. Un volcado que falla se reintenta tal cual, con su misma
+ * secuencia, antes de tomar más pendientes; dentro de la transacción se salta si la secuencia
+ * volcada ya lo cubre, porque un commit del que no llegó la confirmación sí puede haberse hecho.</p>
+ *
+ * <p>Mientras un producto está marcado, esta instancia debe ser la única que reserve su stock:
+ * los contadores se cargan de la base de datos al arrancar y no ven cambios hechos por otros.</p>
+ */
+@Slf4j
+@Component
+public class ReservasCalientes {
+
+    private record Anotacion(Long productoId, int cantidad, CompletableFuture<Void> escrita) {
+    }
+
+    // Anotaciones escritas por cada llamada al sistema como mucho
+    private static final int MAXIMO_LOTE_JOURNAL = 1024;
+    // Se encola al detener: el escritor termina el lote en curso y sale
+    private static final Anotacion FIN = new Anotacion(null, 0, null);
+
+    private final Set<Long> productosCalientes;
+    private final int franjas;
+    private final Path directorioJournal;
+    private final Duration intervaloVolcado;
+    private final InventarioRepository inventarioRepository;
+    private final VolcadoReservasRepository volcadoRepository;
+    private final TransactionTemplate transaccion;
+
+    private final Map<Long, EstadoCaliente> estados = new ConcurrentHashMap<>();
+    // Protege el journal y los pendientes: escribir un lote y acumularlo es una sola operación
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<Anotacion> porAnotar = new LinkedBlockingQueue<>();
+    private volatile boolean escritorDetenido;
+    private final Map<Long, Long> pendientes = new HashMap<>();
+    // Segmentos cerrados cuyas reservas aún no han hecho commit; solo los toca el hilo de volcado
+    private final List<Path> segmentosPorVolcar = new ArrayList<>();
+    // Lote tomado de los pendientes que aún no consta como aplicado; solo lo toca el hilo de volcado
+    private LoteVolcado porVolcar;
+    private JournalReservas journal;
+    private Thread escritor;
+    private ScheduledExecutorService volcador;
+
+    public ReservasCalientes(@Value("${inventario.calientes.productos:}") Set<Long> productosCalientes,
+                             @Value("${inventario.calientes.franjas:16}") int franjas,
+                             @Value("${inventario.calientes.directorio-journal:journal}") Path directorioJournal,
+                             @Value("${inventario.calientes.intervalo-volcado:200ms}") Duration intervaloVolcado,
+                             InventarioRepository inventarioRepository, VolcadoReservasRepository volcadoRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.productosCalientes = productosCalientes;
+        this.franjas = franjas;
+        this.directorioJournal = directorioJournal;
+        this.intervaloVolcado = intervaloVolcado;
+        this.inventarioRepository = inventarioRepository;
+        this.volcadoRepository = volcadoRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /** Reproduce lo que quedó sin volcar, carga los contadores y arranca el volcado periódico. */
+    @PostConstruct
+    public void iniciar() throws IOException {
+        if (productosCalientes.isEmpty()) {
+            return;
+        }
+        journal = new JournalReservas(directorioJournal);
+        long ultimaSecuencia = reproducirJournal();
+        journal.abrir(ultimaSecuencia);
+        escritor = Thread.ofPlatform().name("journal-reservas").daemon().start(this::escribir);
+
+        for (Long productoId : productosCalientes) {
+            inventarioRepository.findByProductoId(productoId).ifPresentOrElse(
+                    inventario -> estados.put(productoId, new EstadoCaliente(inventario, franjas)),
+                    () -> log.warn("Producto caliente {} sin inventario: se reserva por la base de datos", productoId));
+        }
+
+        volcador = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("volcado-reservas").daemon().factory());
+        long periodo = intervaloVolcado.toMillis();
+        volcador.scheduleWithFixedDelay(this::volcar, periodo, periodo, TimeUnit.MILLISECONDS);
+        log.info("Modo de productos calientes activo para {}", estados.keySet());
+    }
+
+    public boolean esCaliente(Long productoId) {
+        return estados.containsKey(productoId);
+    }
+
+    /**
+     * Reserva contra el contador en memoria y la anota en el journal.
+     *
+     * @return el inventario tras la reserva, o vacío si no hay bastante disponible
+     */
+    public Optional<Inventario> reservar(Long productoId, int cantidad) {
+        EstadoCaliente estado = estados.get(productoId);
+        if (!estado.disponible.reservar(cantidad)) {
+            return Optional.empty();
+        }
+        try {
+            anotar(productoId, cantidad, "No se pudo anotar la reserva en el journal");
+        } catch (RuntimeException ex) {
+            estado.disponible.devolver(cantidad);
+            throw ex;
+        }
+        estado.reservado.add(cantidad);
+        return Optional.of(estado.actual());
+    }
+
+    /**
+     * Deshace una reserva ya aceptada, por ejemplo si falla el lote del que formaba parte. Se anota
+     * en el journal como una reserva en negativo, así que el volcado y la reproducción la restan.
+     */
+    public void liberar(Long productoId, int cantidad) {
+        EstadoCaliente estado = estados.get(productoId);
+        // Sin anotar, las unidades siguen reservadas: se pierden para la venta pero no se vende de más
+        anotar(productoId, -cantidad, "No se pudo anotar la liberación en el journal");
+        estado.reservado.add(-cantidad);
+        estado.disponible.devolver(cantidad);
+    }
+
+    /** El inventario con las cantidades en memoria, que van por delante de la base de datos. */
+    public Inventario actual(Long productoId) {
+        return estados.get(productoId).actual();
+    }
+
+    /** Aplica en una transacción lo reservado desde el último volcado, o reintenta el que falló. */
+    void volcar() {
+        if (porVolcar == null) {
+            lock.lock();
+            try {
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                segmentosPorVolcar.add(journal.rotar());
+                porVolcar = new LoteVolcado(new HashMap<>(pendientes), journal.ultimaSecuencia());
+                pendientes.clear();
+            } catch (IOException ex) {
+                log.error("No se pudo rotar el journal de reservas; se reintenta en el próximo volcado", ex);
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        try {
+            aplicar(porVolcar.reservas(), porVolcar.secuencia());
+        } catch (RuntimeException ex) {
+            // No se mezcla con los pendientes: con otra secuencia se aplicaría dos veces si el commit sí llegó
+            log.error("Fallo al volcar reservas en memoria; se reintenta en el próximo volcado", ex);
+            return;
+        }
+        porVolcar = null;
+        try {
+            journal.descartar(segmentosPorVolcar);
+            segmentosPorVolcar.clear();
+        } catch (IOException ex) {
+            // Ya aplicadas: al reproducir se saltan por su secuencia
+            log.warn("No se pudieron borrar segmentos ya volcados del journal", ex);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws IOException {
+        if (volcador == null) {
+            return;
+        }
+        volcador.shutdown();
+        // Sin interrumpir al escritor: interrumpir una escritura en el FileChannel lo cierra
+        porAnotar.add(FIN);
+        try {
+            volcador.awaitTermination(10, TimeUnit.SECONDS);
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        volcar();
+        journal.close();
+    }
+
+    // Encola la anotación y espera a que el escritor la deje en el journal
+    private void anotar(Long productoId, int cantidad, String error) {
+        Anotacion anotacion = new Anotacion(productoId, cantidad, new CompletableFuture<>());
+        porAnotar.add(anotacion);
+        // Si el escritor ya vació la cola al parar, nadie la tomará: se retira y se rechaza
+        if (escritorDetenido && porAnotar.remove(anotacion)) {
+            throw new IllegalStateException("El journal de reservas está detenido");
+        }
+        try {
+            anotacion.escrita().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(error, io);
+            }
+            throw ex.getCause() instanceof RuntimeException causa ? causa : ex;
+        }
+    }
+
+    private void escribir() {
+        List<Anotacion> lote = new ArrayList<>(MAXIMO_LOTE_JOURNAL);
+        try {
+            while (true) {
+                lote.add(porAnotar.take());
+                porAnotar.drainTo(lote, MAXIMO_LOTE_JOURNAL - 1);
+                int fin = lote.indexOf(FIN);
+                if (fin < 0) {
+                    escribirLote(lote);
+                    lote.clear();
+                    continue;
+                }
+                List<Anotacion> antes = new ArrayList<>(lote.subList(0, fin));
+                lote.subList(0, fin + 1).clear();
+                escribirLote(antes);
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            escritorDetenido = true;
+            porAnotar.drainTo(lote);
+            lote.stream().filter(anotacion -> anotacion != FIN).forEach(anotacion -> anotacion.escrita()
+                    .completeExceptionally(new IllegalStateException("El journal de reservas está detenido")));
+        }
+    }
+
+    private void escribirLote(List<Anotacion> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (Anotacion anotacion : lote) {
+                journal.preparar(anotacion.productoId(), anotacion.cantidad());
+            }
+            journal.escribir();
+            lote.forEach(anotacion -> pendientes.merge(anotacion.productoId(), (long) anotacion.cantidad(), Long::sum));
+        } catch (IOException | RuntimeException ex) {
+            lote.forEach(anotacion -> anotacion.escrita().completeExceptionally(ex));
+            return;
+        } finally {
+            lock.unlock();
+        }
+        lote.forEach(anotacion -> anotacion.escrita().complete(null));
+    }
+
+    private long reproducirJournal() throws IOException {
+        long volcada = volcadoRepository.findById(VolcadoReservas.ID).map(VolcadoReservas::getSecuencia).orElse(0L);
+        long ultima = volcada;
+        Map<Long, Long> reservas = new HashMap<>();
+        for (JournalReservas.Registro registro : journal.registrosPrevios()) {
+            if (registro.secuencia() > volcada) {
+                reservas.merge(registro.productoId(), (long) registro.cantidad(), Long::sum);
+            }
+            ultima = Math.max(ultima, registro.secuencia());
+        }
+        if (!reservas.isEmpty()) {
+            log.warn("Reproduciendo reservas del journal no volcadas antes de la parada: {}", reservas);
+            aplicar(reservas, ultima);
+        }
+        journal.descartar(journal.segmentosPrevios());
+        return ultima;
+    }
+
+    private void aplicar(Map<Long, Long> reservas, long secuencia) {
+        transaccion.executeWithoutResult(status -> {
+            long volcada = volcadoRepository.findById(VolcadoReservas.ID).map(VolcadoReservas::getSecuencia).orElse(0L);
+            if (volcada >= secuencia) {
+                log.warn("Reservas hasta la secuencia {} ya volcadas: no se aplican de nuevo", secuencia);
+                return;
+            }
+            inventarioRepository.aplicarReservas(reservas);
+            volcadoRepository.save(new VolcadoReservas(VolcadoReservas.ID, secuencia));
+        });
+    }
+
+    private record LoteVolcado(Map<Long, Long> reservas, long secuencia) {
+    }
+
+    private static final class EstadoCaliente {
+        private final Long inventarioId;
+        private final Long productoId;
+        private final int reservadaInicial;
+        private final ContadorFranjado disponible;
+        private final LongAdder reservado = new LongAdder();
+
+        EstadoCaliente(Inventario inventario, int franjas) {
+            this.inventarioId = inventario.getId();
+            this.productoId = inventario.getProductoId();
+            this.reservadaInicial = inventario.getCantidadReservada();
+            this.disponible = new ContadorFranjado(inventario.getCantidadDisponible(), franjas);
+        }
+
+        Inventario actual() {
+            return new Inventario(inventarioId, productoId, Math.toIntExact(disponible.disponible()),
+                    Math.toIntExact(reservadaInicial + reservado.sum()));
+        }
+    }
+}
@@ -1,109 +1,367 @@
 package com.example.inventario.service;
 
+import com.example.inventario.cache.ProductoCache;
 import com.example.inventario.dto.InventarioDTO;
 import com.example.inventario.dto.InventarioResponse;
+import com.example.inventario.dto.ProductoResponse;
 import com.example.inventario.event.InventarioEventPublisher;
 import com.example.inventario.exception.ResourceNotFoundException;
-import com.example.inventario.feign.ProductoClient;
+import com.example.inventario.exception.SolicitudInvalidaException;
+import com.example.inventario.exception.StockInsuficienteException;
 import com.example.inventario.model.Inventario;
 import com.example.inventario.repository.InventarioRepository;
+import com.example.inventario.reservas.AgrupadorReservas;
+import com.example.inventario.reservas.ReservasCalientes;
+import com.example.inventario.jsonapi.JsonApiCollectionResponse;
+import com.example.inventario.jsonapi.JsonApiError;
 import com.example.inventario.jsonapi.JsonApiResponse;
 import feign.FeignException;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Operaciones de inventario. El producto se obtiene de {@link ProductoCache} a la vez que se hace
+ * la lectura local; si no está en caché, la llamada a productos-service corre en paralelo. Las
+ * transacciones se abren solo alrededor de los accesos a base de datos: ninguna conexión JDBC
+ * queda retenida mientras se espera la red.
+ */
 @Service
-@RequiredArgsConstructor
 public class InventarioService {
 
     private final InventarioRepository inventarioRepository;
-    private final ProductoClient productoClient;
+    private final ProductoCache productoCache;
     private final InventarioEventPublisher eventPublisher;
-    
-    public void setProductosApiKey(String productosApiKey) {
-    this.productosApiKey = productosApiKey;
-    }
+    private final ReservasCalientes reservasCalientes;
+    private final AgrupadorReservas agrupadorReservas;
+    private final TransactionTemplate transaccionLectura;
+    private final TransactionTemplate transaccion;
+
+    @Value("${inventario.consulta-ids.maximo:1000}")
+    private int maximoIdsPorConsulta = 1000;
 
-    @Value("${productos.api.key}")
-    private String productosApiKey;
+    @Value("${inventario.lote.maximo-lineas:1000}")
+    private int maximoLineasPorLote = 1000;
+
+    public InventarioService(InventarioRepository inventarioRepository, ProductoCache productoCache,
+                             InventarioEventPublisher eventPublisher, ReservasCalientes reservasCalientes,
+                             AgrupadorReservas agrupadorReservas, PlatformTransactionManager transactionManager) {
+        this.inventarioRepository = inventarioRepository;
+        this.productoCache = productoCache;
+        this.eventPublisher = eventPublisher;
+        this.reservasCalientes = reservasCalientes;
+        this.agrupadorReservas = agrupadorReservas;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
 
-    @Transactional(readOnly = true)
     public JsonApiResponse<InventarioResponse> consultarInventario(Long productoId) {
-        try {
-            // Primero consulta el microservicio de productos
-            var productoApiResponse = productoClient.obtenerProductoPorId(productoId, productosApiKey);
-            var productoResponse = productoApiResponse.getData().getAttributes();
+        CompletableFuture<Optional<ProductoResponse>> producto = productoCache.obtener(productoId);
+        Optional<Inventario> inventario = leerInventario(productoId);
 
-            // Luego busca el inventario local
-            Inventario inventario = inventarioRepository.findByProductoId(productoId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Inventario no encontrado para el producto ID: " + productoId));
+        String nombreProducto = esperarProducto(productoId, producto).getNombre();
+        return mapToJsonApiResponse(inventario.orElseThrow(() -> inventarioNoEncontrado(productoId)), nombreProducto);
+    }
 
-            return mapToJsonApiResponse(inventario, productoResponse.getNombre());
-        } catch (FeignException ex) {
-            throw new IllegalArgumentException("Error al comunicarse con el microservicio de productos: " + ex.getMessage());
+    /**
+     * Inventario de varios productos: una consulta IN para las filas y, en paralelo, una consulta
+     * por IDs a productos-service solo por los que no estén en caché. Lo que no se puede resolver
+     * se informa por producto en {@code meta.errores}, sin que falle el resto.
+     */
+    public JsonApiCollectionResponse<InventarioResponse> consultarInventarios(Collection<Long> productoIds) {
+        List<Long> ids = productoIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > maximoIdsPorConsulta) {
+            throw new SolicitudInvalidaException("No se pueden consultar más de " + maximoIdsPorConsulta + " productos a la vez");
         }
+        CompletableFuture<Map<Long, Optional<ProductoResponse>>> productos = productoCache.obtenerVarios(ids);
+        Map<Long, Inventario> inventarios = leerInventarios(ids);
+
+        Map<Long, Optional<ProductoResponse>> encontrados = Map.of();
+        JsonApiError.ErrorObject falloProductos = null;
+        try {
+            encontrados = productos.join();
+        } catch (CompletionException ex) {
+            falloProductos = new JsonApiError.ErrorObject("External Service Error",
+                    "Error al comunicarse con el microservicio de productos: " + ex.getCause().getMessage(), "502");
+        }
+
+        List<JsonApiResponse.Data<InventarioResponse>> data = new ArrayList<>();
+        Map<String, JsonApiError.ErrorObject> errores = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Optional<ProductoResponse> producto = encontrados.getOrDefault(id, Optional.empty());
+            Inventario inventario = inventarios.get(id);
+            if (falloProductos != null) {
+                errores.put(id.toString(), falloProductos);
+            } else if (producto.isEmpty()) {
+                errores.put(id.toString(), new JsonApiError.ErrorObject("Resource Not Found",
+                        "Producto no encontrado con ID: " + id, "404"));
+            } else if (inventario == null) {
+                errores.put(id.toString(), new JsonApiError.ErrorObject("Resource Not Found",
+                        inventarioNoEncontrado(id).getMessage(), "404"));
+            } else {
+                data.add(mapToJsonApiResponse(inventario, producto.get().getNombre()).getData());
+            }
+        }
+        JsonApiCollectionResponse<InventarioResponse> respuesta = new JsonApiCollectionResponse<>(data)
+                .meta("total", ids.size());
+        if (!errores.isEmpty()) {
+            respuesta.meta("errores", errores);
+        }
+        return respuesta;
     }
 
-    @Transactional
     public JsonApiResponse<InventarioResponse> actualizarInventario(InventarioDTO inventarioDTO) {
-        try {
-            // Primero consulta el microservicio de productos
-            var productoApiResponse = productoClient.obtenerProductoPorId(inventarioDTO.getProductoId(), productosApiKey);
-            var productoResponse = productoApiResponse.getData().getAttributes();
+        Long productoId = inventarioDTO.getProductoId();
+        String nombreProducto = esperarProducto(productoId, productoCache.obtener(productoId)).getNombre();
 
-            // Luego busca el inventario local
-            Inventario inventario = inventarioRepository.findByProductoId(inventarioDTO.getProductoId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Inventario no encontrado para el producto ID: " + inventarioDTO.getProductoId()));
+        Inventario inventarioActualizado = reservar(productoId, inventarioDTO.getCantidad()).orElseThrow(() -> reservaFallida(productoId, inventarioDTO.getCantidad()));
 
-            // Actualizar cantidades
-            inventario.setCantidadDisponible(inventario.getCantidadDisponible() - inventarioDTO.getCantidad());
-            inventario.setCantidadReservada(inventario.getCantidadReservada() + inventarioDTO.getCantidad());
+        // Emitir evento después de actualizar inventario
+        eventPublisher.publishInventarioActualizadoEvent(
+                inventarioActualizado.getProductoId(),
+                inventarioActualizado.getCantidadDisponible()
+        );
 
-            Inventario inventarioActualizado = inventarioRepository.save(inventario);
+        return mapToJsonApiResponse(inventarioActualizado, nombreProducto);
+    }
 
-            // Emitir evento después de actualizar inventario
-            eventPublisher.publishInventarioActualizadoEvent(
-                    inventarioActualizado.getProductoId(),
-                    inventarioActualizado.getCantidadDisponible()
-            );
+    /**
+     * Reserva todas las líneas en una sola transacción, o ninguna. Las líneas del mismo producto se
+     * suman y las filas se actualizan en orden de productoId con un lote de sentencias condicionales,
+     * así que dos pedidos que se solapan toman los bloqueos de fila en el mismo orden. Esto depende
+     * del índice único {@code ux_inventarios_producto_id}: cada sentencia localiza su fila por él y
+     * solo bloquea esa fila. Sin el índice recorrería la tabla, bloquearía filas ajenas y el orden
+     * dejaría de evitar los interbloqueos.
+     * Los productos calientes se reservan en memoria al final y se liberan si la transacción no llega
+     * a confirmarse.
+     */
+    public JsonApiCollectionResponse<InventarioResponse> reservarLote(List<InventarioDTO> lineas) {
+        SortedMap<Long, Integer> cantidades = agruparLineas(lineas);
+        Map<Long, String> nombres = esperarProductos(productoCache.obtenerVarios(cantidades.keySet()));
 
-            return mapToJsonApiResponse(inventarioActualizado, productoResponse.getNombre());
-        } catch (FeignException ex) {
-            throw new IllegalArgumentException("Error al comunicarse con el microservicio de productos: " + ex.getMessage());
+        SortedMap<Long, Integer> frias = new TreeMap<>();
+        SortedMap<Long, Integer> calientes = new TreeMap<>();
+        cantidades.forEach((productoId, cantidad) ->
+                (reservasCalientes.esCaliente(productoId) ? calientes : frias).put(productoId, cantidad));
+
+        Map<Long, Inventario> reservados = new TreeMap<>();
+        Map<Long, Integer> calientesReservadas = new LinkedHashMap<>();
+        try {
+            transaccion.executeWithoutResult(status -> {
+                if (!frias.isEmpty()) {
+                    List<Long> fallidos = inventarioRepository.reservarLote(frias);
+                    if (!fallidos.isEmpty()) {
+                        throw lineasFallidas(fallidos, frias);
+                    }
+                    inventarioRepository.findByProductoIdIn(frias.keySet())
+                            .forEach(inventario -> reservados.put(inventario.getProductoId(), inventario));
+                }
+                calientes.forEach((productoId, cantidad) -> {
+                    Inventario inventario = reservasCalientes.reservar(productoId, cantidad)
+                            .orElseThrow(() -> lineasFallidas(List.of(productoId), calientes));
+                    calientesReservadas.put(productoId, cantidad);
+                    reservados.put(productoId, inventario);
+                });
+            });
+        } catch (RuntimeException ex) {
+            calientesReservadas.forEach(reservasCalientes::liberar);
+            throw ex;
+        }
+
+        List<JsonApiResponse.Data<InventarioResponse>> data = new ArrayList<>();
+        for (Inventario inventario : reservados.values()) {
+            eventPublisher.publishInventarioActualizadoEvent(inventario.getProductoId(), inventario.getCantidadDisponible());
+            data.add(mapToJsonApiResponse(inventario, nombres.get(inventario.getProductoId())).getData());
         }
+        return new JsonApiCollectionResponse<>(data).meta("total", data.size());
     }
 
-    @Transactional
     public JsonApiResponse<InventarioResponse> crearInventario(Long productoId, Integer cantidadInicial) {
-        try {
-            // Primero consulta el microservicio de productos
-            var productoApiResponse = productoClient.obtenerProductoPorId(productoId, productosApiKey);
-            var productoResponse = productoApiResponse.getData().getAttributes();
+        CompletableFuture<Optional<ProductoResponse>> producto = productoCache.obtener(productoId);
+        boolean existe = leer(() -> inventarioRepository.findByProductoId(productoId).isPresent());
+
+        String nombreProducto = esperarProducto(productoId, producto).getNombre();
+        if (existe) {
+            throw new IllegalArgumentException("El inventario para este producto ya existe.");
+        }
+
+        Inventario inventario = new Inventario();
+        inventario.setProductoId(productoId);
+        inventario.setCantidadDisponible(cantidadInicial);
+        inventario.setCantidadReservada(0);
+
+        Inventario guardado = transaccion.execute(status -> inventarioRepository.save(inventario));
+
+        // Emitir evento después de crear inventario
+        eventPublisher.publishInventarioActualizadoEvent(
+            guardado.getProductoId(),
+            guardado.getCantidadDisponible()
+        );
+
+        return mapToJsonApiResponse(guardado, nombreProducto);
+    }
+
+    private SortedMap<Long, Integer> agruparLineas(List<InventarioDTO> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            throw new SolicitudInvalidaException("El lote de reservas no puede estar vacío");
+        }
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        for (InventarioDTO linea : lineas) {
+            if (linea == null || linea.getProductoId() == null || linea.getCantidad() == null || linea.getCantidad() < 0) {
+                throw new SolicitudInvalidaException("Cada línea necesita productoId y una cantidad no negativa");
+            }
+            try {
+                cantidades.merge(linea.getProductoId(), linea.getCantidad(), Math::addExact);
+            } catch (ArithmeticException ex) {
+                throw new SolicitudInvalidaException("La cantidad total del producto " + linea.getProductoId() + " es demasiado grande");
+            }
+        }
+        if (cantidades.size() > maximoLineasPorLote) {
+            throw new SolicitudInvalidaException("No se pueden reservar más de " + maximoLineasPorLote + " productos a la vez");
+        }
+        return cantidades;
+    }
 
-            // Luego verifica si ya existe el inventario
-            if (inventarioRepository.findByProductoId(productoId).isPresent()) {
-                throw new IllegalArgumentException("El inventario para este producto ya existe.");
+    // Dentro de la transacción del lote: las filas que fallaron no se modificaron, sus cantidades siguen vigentes
+    private RuntimeException lineasFallidas(List<Long> productoIds, Map<Long, Integer> cantidades) {
+        Map<Long, Inventario> inventarios = new HashMap<>();
+        List<Long> enBaseDeDatos = new ArrayList<>();
+        for (Long productoId : productoIds) {
+            if (reservasCalientes.esCaliente(productoId)) {
+                inventarios.put(productoId, reservasCalientes.actual(productoId));
+            } else {
+                enBaseDeDatos.add(productoId);
             }
+        }
+        if (!enBaseDeDatos.isEmpty()) {
+            inventarioRepository.findByProductoIdIn(enBaseDeDatos)
+                    .forEach(inventario -> inventarios.put(inventario.getProductoId(), inventario));
+        }
+        for (Long productoId : productoIds) {
+            if (!inventarios.containsKey(productoId)) {
+                return inventarioNoEncontrado(productoId);
+            }
+        }
+        return new StockInsuficienteException("Stock insuficiente en el lote: " + productoIds.stream()
+                .map(productoId -> "producto ID " + productoId + " (disponible: "
+                        + inventarios.get(productoId).getCantidadDisponible() + ", solicitado: "
+                        + cantidades.get(productoId) + ")")
+                .collect(Collectors.joining("; ")));
+    }
 
-            Inventario inventario = new Inventario();
-            inventario.setProductoId(productoId);
-            inventario.setCantidadDisponible(cantidadInicial);
-            inventario.setCantidadReservada(0);
+    // Los productos calientes van por delante de la base de datos: se leen de memoria
+    private Optional<Inventario> leerInventario(Long productoId) {
+        return reservasCalientes.esCaliente(productoId)
+                ? Optional.of(reservasCalientes.actual(productoId))
+                : leer(() -> inventarioRepository.findByProductoId(productoId));
+    }
 
-            Inventario guardado = inventarioRepository.save(inventario);
+    private Map<Long, Inventario> leerInventarios(List<Long> productoIds) {
+        Map<Long, Inventario> inventarios = new HashMap<>();
+        List<Long> enBaseDeDatos = new ArrayList<>();
+        for (Long productoId : productoIds) {
+            if (reservasCalientes.esCaliente(productoId)) {
+                inventarios.put(productoId, reservasCalientes.actual(productoId));
+            } else {
+                enBaseDeDatos.add(productoId);
+            }
+        }
+        if (!enBaseDeDatos.isEmpty()) {
+            leer(() -> inventarioRepository.findByProductoIdIn(enBaseDeDatos))
+                    .forEach(inventario -> inventarios.put(inventario.getProductoId(), inventario));
+        }
+        return inventarios;
+    }
 
-            // Emitir evento después de crear inventario
-            eventPublisher.publishInventarioActualizadoEvent(
-                guardado.getProductoId(),
-                guardado.getCantidadDisponible()
-            );
+    // Lectura local en una transacción de solo lectura, mientras la consulta del producto sigue en curso
+    private <T> T leer(Supplier<T> lectura) {
+        return transaccionLectura.execute(status -> lectura.get());
+    }
 
-            return mapToJsonApiResponse(guardado, productoResponse.getNombre());
-        } catch (FeignException ex) {
-            throw new IllegalArgumentException("Error al comunicarse con el microservicio de productos: " + ex.getMessage());
+    private ProductoResponse esperarProducto(Long productoId, CompletableFuture<Optional<ProductoResponse>> producto) {
+        try {
+            return producto.join()
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + productoId));
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof FeignException feignException) {
+                throw new IllegalArgumentException("Error al comunicarse con el microservicio de productos: " + feignException.getMessage());
+            }
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+    }
+
+    private Map<Long, String> esperarProductos(CompletableFuture<Map<Long, Optional<ProductoResponse>>> productos) {
+        Map<Long, Optional<ProductoResponse>> encontrados;
+        try {
+            encontrados = productos.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof FeignException feignException) {
+                throw new IllegalArgumentException("Error al comunicarse con el microservicio de productos: " + feignException.getMessage());
+            }
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+        Map<Long, String> nombres = new HashMap<>();
+        encontrados.forEach((productoId, producto) -> nombres.put(productoId, producto
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + productoId))
+                .getNombre()));
+        return nombres;
+    }
+
+    /**
+     * Reserva por el camino que corresponda: contadores en memoria para los productos calientes,
+     * el lote del agrupador si está activo, o una sola sentencia condicional que comprueba, resta
+     * y devuelve la fila, donde el número de filas decide el resultado.
+     */
+    private Optional<Inventario> reservar(Long productoId, int cantidad) {
+        if (reservasCalientes.esCaliente(productoId)) {
+            return reservasCalientes.reservar(productoId, cantidad);
+        }
+        if (agrupadorReservas.isActivo()) {
+            try {
+                return agrupadorReservas.reservar(productoId, cantidad).join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException causa) {
+                    throw causa;
+                }
+                throw ex;
+            }
         }
+        return inventarioRepository.reservar(productoId, cantidad);
+    }
+
+    // Solo en el caso raro de fallo se consulta la fila, para distinguir entre inexistente y sin stock
+    private RuntimeException reservaFallida(Long productoId, int cantidad) {
+        return leerInventario(productoId).<RuntimeException>map(inventario -> new StockInsuficienteException(
+                        "Stock insuficiente para el producto ID: " + productoId + " (disponible: "
+                                + inventario.getCantidadDisponible() + ", solicitado: " + cantidad + ")"))
+                .orElseGet(() -> inventarioNoEncontrado(productoId));
+    }
+
+    private static ResourceNotFoundException inventarioNoEncontrado(Long productoId) {
+        return new ResourceNotFoundException("Inventario no encontrado para el producto ID: " + productoId);
     }
 
     // Método utilitario para mapear la entidad a respuesta JSON:API
@@ -121,4 +379,4 @@ public class InventarioService {
                 attributes
         );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package com.example.inventario.cache;
+
+import com.example.inventario.dto.ProductoApiResponse;
+import com.example.inventario.dto.ProductoResponse;
+import com.example.inventario.dto.ProductosApiResponse;
+import com.example.inventario.feign.ProductoClient;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para ProductoCache, con un reloj manual y las cargas encoladas hasta que el test las ejecuta.
+ */
+class ProductoCacheTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final Queue<Runnable> cargasPendientes = new ArrayDeque<>();
+    private ProductoClient productoClient;
+    private SimpleMeterRegistry registry;
+    private ProductoCache cache;
+
+    @BeforeEach
+    void setUp() {
+        productoClient = mock(ProductoClient.class);
+        registry = new SimpleMeterRegistry();
+        cache = new ProductoCache(productoClient, registry, cargasPendientes::add, reloj::get,
+                100, Duration.ofMinutes(1), Duration.ofHours(1), Duration.ofSeconds(30),
+                Duration.ZERO, 100);
+    }
+
+    /**
+     * Prueba que pasado el refresco se sirve el valor cacheado y se recarga en segundo plano.
+     */
+    @Test
+    void testRefrescoAnticipado() {
+        when(productoClient.obtenerProductoPorId(eq(1L), any()))
+                .thenReturn(respuesta(1L, "Antiguo"), respuesta(1L, "Nuevo"));
+
+        assertEquals("Antiguo", obtener(1L).orElseThrow().getNombre());
+        avanzar(Duration.ofMinutes(2));
+
+        // Sin esperar a la recarga, que queda encolada
+        assertEquals("Antiguo", cache.obtener(1L).getNow(null).orElseThrow().getNombre());
+        ejecutarCargas();
+        assertEquals("Nuevo", obtener(1L).orElseThrow().getNombre());
+        verify(productoClient, times(2)).obtenerProductoPorId(eq(1L), any());
+    }
+
+    /**
+     * Prueba que si productos-service falla al recargar se sigue sirviendo el valor anterior,
+     * contado como obsoleto, hasta el máximo de obsolescencia.
+     */
+    @Test
+    void testValorObsoletoSiFallaLaRecarga() {
+        when(productoClient.obtenerProductoPorId(eq(1L), any()))
+                .thenReturn(respuesta(1L, "Teclado"))
+                .thenThrow(FeignException.class);
+
+        obtener(1L);
+        avanzar(Duration.ofMinutes(10));
+
+        assertEquals("Teclado", obtener(1L).orElseThrow().getNombre());
+        assertEquals("Teclado", obtener(1L).orElseThrow().getNombre());
+        assertEquals(2, registry.get("productos.cache.obsoletas").counter().count());
+
+        avanzar(Duration.ofHours(1));
+        CompletionException ex = assertThrows(CompletionException.class, () -> obtener(1L));
+        assertInstanceOf(FeignException.class, ex.getCause());
+    }
+
+    /**
+     * Prueba que un 404 se recuerda durante el TTL negativo y después se vuelve a consultar.
+     */
+    @Test
+    void testCacheNegativa() {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/productos/9", Map.of(), null, StandardCharsets.UTF_8, null);
+        when(productoClient.obtenerProductoPorId(eq(9L), any()))
+                .thenThrow(new FeignException.NotFound("no encontrado", request, null, Map.of()))
+                .thenReturn(respuesta(9L, "Creado después"));
+
+        assertEquals(Optional.empty(), obtener(9L));
+        assertEquals(Optional.empty(), obtener(9L));
+        verify(productoClient, times(1)).obtenerProductoPorId(eq(9L), any());
+
+        avanzar(Duration.ofSeconds(31));
+        assertEquals("Creado después", obtener(9L).orElseThrow().getNombre());
+    }
+
+    /**
+     * Prueba que las métricas de la caché y de antigüedad quedan registradas.
+     */
+    @Test
+    void testMetricas() {
+        when(productoClient.obtenerProductoPorId(eq(1L), any())).thenReturn(respuesta(1L, "Teclado"));
+
+        obtener(1L);
+        avanzar(Duration.ofSeconds(20));
+        obtener(1L);
+
+        assertEquals(1, cache.estadisticas().hitCount());
+        assertEquals(1, cache.estadisticas().missCount());
+        assertEquals(2, registry.get("productos.cache.antiguedad").timer().count());
+        assertEquals(20, registry.get("productos.cache.antiguedad").timer().max(TimeUnit.SECONDS), 0.001);
+        assertNotNull(registry.find("cache.gets").tag("cache", "productos").functionCounter());
+    }
+
+    /**
+     * Prueba que al pedir varios productos solo los que no están en caché se piden juntos a
+     * productos-service, y que los que no vuelven se recuerdan como inexistentes.
+     */
+    @Test
+    void testObtenerVarios() {
+        when(productoClient.obtenerProductoPorId(eq(1L), any())).thenReturn(respuesta(1L, "Teclado"));
+        ProductosApiResponse varios = new ProductosApiResponse();
+        varios.setData(List.of(respuesta(2L, "Ratón").getData()));
+        when(productoClient.obtenerProductosPorIds(any(), any())).thenReturn(varios);
+        obtener(1L);
+
+        var productos = cache.obtenerVarios(List.of(1L, 2L, 3L));
+        ejecutarCargas();
+
+        Map<Long, Optional<ProductoResponse>> resultado = productos.join();
+        assertEquals("Teclado", resultado.get(1L).orElseThrow().getNombre());
+        assertEquals("Ratón", resultado.get(2L).orElseThrow().getNombre());
+        assertEquals(Optional.empty(), resultado.get(3L));
+        verify(productoClient).obtenerProductosPorIds(argThat(ids -> Set.copyOf(ids).equals(Set.of(2L, 3L))), any());
+        assertEquals(Optional.empty(), obtener(3L));
+        verify(productoClient, never()).obtenerProductoPorId(eq(3L), any());
+    }
+
+    /**
+     * Prueba que las consultas de un solo ID que llegan antes del envío se resuelven con una sola
+     * consulta por IDs, y que las métricas cuentan el lote y las llamadas ahorradas.
+     */
+    @Test
+    void testCargadorAgrupaConsultas() {
+        ProductosApiResponse varios = new ProductosApiResponse();
+        varios.setData(List.of(respuesta(1L, "Teclado").getData(), respuesta(2L, "Ratón").getData()));
+        when(productoClient.obtenerProductosPorIds(any(), any())).thenReturn(varios);
+
+        var teclado = cache.obtener(1L);
+        var raton = cache.obtener(2L);
+        var inexistente = cache.obtener(3L);
+        ejecutarCargas();
+
+        assertEquals("Teclado", teclado.join().orElseThrow().getNombre());
+        assertEquals("Ratón", raton.join().orElseThrow().getNombre());
+        assertEquals(Optional.empty(), inexistente.join());
+        verify(productoClient).obtenerProductosPorIds(eq(List.of(1L, 2L, 3L)), any());
+        verify(productoClient, never()).obtenerProductoPorId(any(), any());
+        assertEquals(3, registry.get("productos.cargador.lote").summary().max());
+        assertEquals(2, registry.get("productos.cargador.llamadas.ahorradas").counter().count());
+    }
+
+    /**
+     * Prueba que un lote lleno se envía sin esperar a la ventana y que lo que llega después
+     * empieza otro lote; un lote de un solo ID usa la consulta individual.
+     */
+    @Test
+    void testCargadorLoteLleno() {
+        registry = new SimpleMeterRegistry();
+        cache = new ProductoCache(productoClient, registry, cargasPendientes::add, reloj::get,
+                100, Duration.ofMinutes(1), Duration.ofHours(1), Duration.ofSeconds(30), Duration.ZERO, 2);
+        ProductosApiResponse varios = new ProductosApiResponse();
+        varios.setData(List.of(respuesta(1L, "Teclado").getData(), respuesta(2L, "Ratón").getData()));
+        when(productoClient.obtenerProductosPorIds(any(), any())).thenReturn(varios);
+        when(productoClient.obtenerProductoPorId(eq(3L), any())).thenReturn(respuesta(3L, "Monitor"));
+
+        var teclado = cache.obtener(1L);
+        var raton = cache.obtener(2L);
+        var monitor = cache.obtener(3L);
+        ejecutarCargas();
+
+        assertEquals("Teclado", teclado.join().orElseThrow().getNombre());
+        assertEquals("Ratón", raton.join().orElseThrow().getNombre());
+        assertEquals("Monitor", monitor.join().orElseThrow().getNombre());
+        verify(productoClient, times(1)).obtenerProductosPorIds(eq(List.of(1L, 2L)), any());
+        verify(productoClient, times(1)).obtenerProductoPorId(eq(3L), any());
+        assertEquals(2, registry.get("productos.cargador.lote").summary().count());
+    }
+
+    private Optional<ProductoResponse> obtener(Long id) {
+        var producto = cache.obtener(id);
+        ejecutarCargas();
+        return producto.join();
+    }
+
+    private void ejecutarCargas() {
+        while (!cargasPendientes.isEmpty()) {
+            cargasPendientes.poll().run();
+        }
+    }
+
+    private void avanzar(Duration tiempo) {
+        reloj.addAndGet(tiempo.toNanos());
+    }
+
+    private static ProductoApiResponse respuesta(Long id, String nombre) {
+        ProductoApiResponse.Data data = new ProductoApiResponse.Data();
+        data.setType("productos");
+        data.setId(id.toString());
+        data.setAttributes(new ProductoResponse(id, nombre, "desc", 10.0, 100));
+        ProductoApiResponse respuesta = new ProductoApiResponse();
+        respuesta.setData(data);
+        return respuesta;
+    }
+}
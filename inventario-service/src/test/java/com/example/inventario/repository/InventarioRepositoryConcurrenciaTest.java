@@ -0,0 +1,92 @@
+package com.example.inventario.repository;
+
+import com.example.inventario.model.Inventario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de concurrencia de la reserva con UPDATE condicional contra SQL Server real.
+ * Necesitan la base de datos de {@code spring.datasource.url}; no entran en la ejecución por
+ * defecto (etiqueta {@code sqlserver}).
+ */
+@Tag("sqlserver")
+@SpringBootTest
+class InventarioRepositoryConcurrenciaTest {
+
+    private static final long PRODUCTO_ID = 990_001L;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository.findByProductoId(PRODUCTO_ID).ifPresent(inventarioRepository::delete);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventarioRepository.findByProductoId(PRODUCTO_ID).ifPresent(inventarioRepository::delete);
+    }
+
+    /**
+     * Prueba de estrés sobre una fila: muchos hilos reservan a la vez con la sentencia
+     * condicional. Lo aceptado nunca supera el stock, la fila refleja exactamente lo aceptado y
+     * cada resultado devuelto por OUTPUT es coherente.
+     */
+    @Test
+    void testReservasConcurrentesSinSobreventa() throws Exception {
+        int stockInicial = 500;
+        int hilos = 16;
+        int intentosPorHilo = 100;
+        inventarioRepository.save(new Inventario(null, PRODUCTO_ID, stockInicial, 0));
+
+        AtomicInteger reservado = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            long semilla = h;
+            tareas.add(executor.submit(() -> {
+                Random random = new Random(semilla);
+                salida.await();
+                for (int i = 0; i < intentosPorHilo; i++) {
+                    int cantidad = 1 + random.nextInt(3);
+                    inventarioRepository.reservar(PRODUCTO_ID, cantidad).ifPresent(fila -> {
+                        assertTrue(fila.getCantidadDisponible() >= 0);
+                        assertEquals(stockInicial, fila.getCantidadDisponible() + fila.getCantidadReservada());
+                        reservado.addAndGet(cantidad);
+                    });
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(120, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Inventario fila = inventarioRepository.findByProductoId(PRODUCTO_ID).orElseThrow();
+        assertTrue(reservado.get() <= stockInicial);
+        assertEquals(reservado.get(), fila.getCantidadReservada());
+        assertEquals(stockInicial - reservado.get(), fila.getCantidadDisponible());
+        // Con más demanda que stock, solo pueden quedar unidades sueltas que ninguna petición pequeña aprovechó
+        assertTrue(fila.getCantidadDisponible() < 3);
+    }
+}
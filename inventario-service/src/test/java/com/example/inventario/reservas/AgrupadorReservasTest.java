@@ -0,0 +1,166 @@
+package com.example.inventario.reservas;
+
+import com.example.inventario.exception.ServicioNoDisponibleException;
+import com.example.inventario.model.Inventario;
+import com.example.inventario.repository.InventarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para la agrupación de reservas simultáneas en un solo commit.
+ */
+class AgrupadorReservasTest {
+
+    private InventarioRepository inventarioRepository;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry registry;
+    private AgrupadorReservas agrupador;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository = mock(InventarioRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        registry = new SimpleMeterRegistry();
+        agrupador = new AgrupadorReservas(true, Duration.ofMillis(50), 256, Duration.ofSeconds(5), inventarioRepository,
+                transactionManager, registry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        agrupador.detener();
+    }
+
+    /**
+     * Prueba que las reservas encoladas a la vez se confirman en una sola transacción con una
+     * actualización por producto, y que cada llamante recibe su propio resultado en orden de llegada.
+     */
+    @Test
+    void testLoteUnSoloCommit() throws Exception {
+        when(inventarioRepository.bloquearPorProductoIds(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(new Inventario(10L, 1L, 10, 0), new Inventario(20L, 2L, 1, 4)));
+        CompletableFuture<Optional<Inventario>> primera = agrupador.reservar(1L, 4);
+        CompletableFuture<Optional<Inventario>> segunda = agrupador.reservar(1L, 5);
+        CompletableFuture<Optional<Inventario>> sinStock = agrupador.reservar(1L, 2);
+        CompletableFuture<Optional<Inventario>> otroProducto = agrupador.reservar(2L, 1);
+        CompletableFuture<Optional<Inventario>> sinInventario = agrupador.reservar(3L, 1);
+
+        agrupador.iniciar();
+
+        assertEquals(6, primera.get(5, TimeUnit.SECONDS).orElseThrow().getCantidadDisponible());
+        Inventario trasSegunda = segunda.get(5, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(1, trasSegunda.getCantidadDisponible());
+        assertEquals(9, trasSegunda.getCantidadReservada());
+        assertTrue(sinStock.get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(5, otroProducto.get(5, TimeUnit.SECONDS).orElseThrow().getCantidadReservada());
+        assertTrue(sinInventario.get(5, TimeUnit.SECONDS).isEmpty());
+        verify(transactionManager, times(1)).commit(any());
+        verify(inventarioRepository).aplicarReservas(Map.of(1L, 9L, 2L, 1L));
+        assertEquals(5, registry.get("inventario.reservas.lote").summary().max());
+    }
+
+    /**
+     * Prueba que si el lote falla en la base de datos todos sus llamantes reciben el error
+     * y el agrupador sigue atendiendo los lotes siguientes.
+     */
+    @Test
+    void testLoteFallido() throws Exception {
+        when(inventarioRepository.bloquearPorProductoIds(any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(new Inventario(10L, 1L, 10, 0)));
+        CompletableFuture<Optional<Inventario>> primera = agrupador.reservar(1L, 1);
+        CompletableFuture<Optional<Inventario>> segunda = agrupador.reservar(1L, 2);
+
+        agrupador.iniciar();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> primera.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(QueryTimeoutException.class, ex.getCause());
+        assertThrows(ExecutionException.class, () -> segunda.get(5, TimeUnit.SECONDS));
+        verify(inventarioRepository, never()).aplicarReservas(any());
+
+        assertEquals(9, agrupador.reservar(1L, 1).get(5, TimeUnit.SECONDS).orElseThrow().getCantidadDisponible());
+    }
+
+    /**
+     * Prueba que una vez detenido el agrupador deja de estar activo y rechaza las reservas nuevas
+     * en lugar de dejarlas en cola sin nadie que las atienda.
+     */
+    @Test
+    void testReservaTrasDetenerSeRechaza() throws Exception {
+        agrupador.iniciar();
+        agrupador.detener();
+
+        assertFalse(agrupador.isActivo());
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> agrupador.reservar(1L, 1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServicioNoDisponibleException.class, ex.getCause());
+        verifyNoInteractions(inventarioRepository);
+    }
+
+    /**
+     * Prueba que una reserva que ningún lote ha tomado sale de la cola al agotar el tiempo máximo,
+     * falla como servicio no disponible y, cuando el agrupador arranca, no llega a reservarse.
+     */
+    @Test
+    void testTiempoMaximo() throws Exception {
+        AgrupadorReservas lento = new AgrupadorReservas(true, Duration.ofMillis(2), 256, Duration.ofMillis(50),
+                inventarioRepository, transactionManager, registry);
+        CompletableFuture<Optional<Inventario>> reserva = lento.reservar(1L, 1);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> reserva.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServicioNoDisponibleException.class, ex.getCause());
+
+        lento.iniciar();
+        when(inventarioRepository.bloquearPorProductoIds(Set.of(2L))).thenReturn(List.of(new Inventario(20L, 2L, 5, 0)));
+        assertTrue(lento.reservar(2L, 1).get(5, TimeUnit.SECONDS).isPresent());
+        verify(inventarioRepository, never()).bloquearPorProductoIds(Set.of(1L));
+        lento.detener();
+    }
+
+    /**
+     * Prueba que una reserva que un lote ya tomó recibe el resultado real del commit aunque la
+     * transacción dure más que el tiempo máximo.
+     */
+    @Test
+    void testLoteEnCursoNoSeCortaPorTiempo() throws Exception {
+        AgrupadorReservas lento = new AgrupadorReservas(true, Duration.ofMillis(2), 256, Duration.ofMillis(50),
+                inventarioRepository, transactionManager, registry);
+        when(inventarioRepository.bloquearPorProductoIds(Set.of(1L))).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return List.of(new Inventario(10L, 1L, 5, 0));
+        });
+        lento.iniciar();
+
+        assertEquals(4, lento.reservar(1L, 1).get(5, TimeUnit.SECONDS).orElseThrow().getCantidadDisponible());
+        verify(transactionManager).commit(any());
+        lento.detener();
+    }
+
+    /**
+     * Prueba que con la agrupación deshabilitada no arranca el hilo y el servicio reserva por el camino directo.
+     */
+    @Test
+    void testDeshabilitado() {
+        AgrupadorReservas deshabilitado = new AgrupadorReservas(false, Duration.ofMillis(2), 256, Duration.ofSeconds(5), inventarioRepository,
+                transactionManager, registry);
+        deshabilitado.iniciar();
+
+        assertFalse(deshabilitado.isActivo());
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.inventario.reservas;
+
+import com.example.inventario.model.Inventario;
+import com.example.inventario.model.VolcadoReservas;
+import com.example.inventario.repository.InventarioRepository;
+import com.example.inventario.repository.VolcadoReservasRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para el modo de productos calientes: contadores en memoria, journal y volcado.
+ */
+class ReservasCalientesTest {
+
+    @TempDir
+    Path directorio;
+
+    private InventarioRepository inventarioRepository;
+    private VolcadoReservasRepository volcadoRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventarioRepository = mock(InventarioRepository.class);
+        volcadoRepository = mock(VolcadoReservasRepository.class);
+        when(volcadoRepository.findById(VolcadoReservas.ID)).thenReturn(Optional.empty());
+        when(inventarioRepository.findByProductoId(1L)).thenReturn(Optional.of(new Inventario(5L, 1L, 10, 2)));
+    }
+
+    /**
+     * Prueba que una reserva puede juntar unidades de varias franjas y que nunca se reserva de más.
+     */
+    @Test
+    void testContadorFranjado() {
+        ContadorFranjado contador = new ContadorFranjado(10, 4);
+
+        assertTrue(contador.reservar(7));
+        assertFalse(contador.reservar(4));
+        assertEquals(3, contador.disponible());
+        assertTrue(contador.reservar(3));
+        assertFalse(contador.reservar(1));
+        assertEquals(0, contador.disponible());
+    }
+
+    /**
+     * Prueba que lo reservado en memoria se vuelca en una transacción con la última secuencia
+     * y que después los segmentos del journal se borran.
+     */
+    @Test
+    void testVolcado() throws Exception {
+        ReservasCalientes reservas = nuevasReservas();
+        reservas.iniciar();
+
+        assertTrue(reservas.esCaliente(1L));
+        assertEquals(7, reservas.reservar(1L, 3).orElseThrow().getCantidadDisponible());
+        assertEquals(7, reservas.reservar(1L, 2).orElseThrow().getCantidadReservada());
+        assertTrue(reservas.reservar(1L, 6).isEmpty());
+        reservas.volcar();
+
+        verify(inventarioRepository).aplicarReservas(Map.of(1L, 5L));
+        ArgumentCaptor<VolcadoReservas> volcado = ArgumentCaptor.forClass(VolcadoReservas.class);
+        verify(volcadoRepository).save(volcado.capture());
+        assertEquals(2L, volcado.getValue().getSecuencia());
+        assertEquals(1, segmentos().size());
+        reservas.detener();
+    }
+
+    /**
+     * Prueba que si el volcado falla se reintenta el mismo lote, con su secuencia, y que lo
+     * reservado mientras tanto va en el volcado siguiente.
+     */
+    @Test
+    void testVolcadoFallidoSeReintenta() throws Exception {
+        ReservasCalientes reservas = nuevasReservas();
+        reservas.iniciar();
+        doThrow(new IllegalStateException("base de datos caída")).doNothing()
+                .when(inventarioRepository).aplicarReservas(anyMap());
+
+        reservas.reservar(1L, 2);
+        reservas.volcar();
+        reservas.reservar(1L, 1);
+        reservas.volcar();
+        reservas.volcar();
+
+        verify(inventarioRepository, times(2)).aplicarReservas(Map.of(1L, 2L));
+        verify(inventarioRepository).aplicarReservas(Map.of(1L, 1L));
+        ArgumentCaptor<VolcadoReservas> volcados = ArgumentCaptor.forClass(VolcadoReservas.class);
+        verify(volcadoRepository, times(2)).save(volcados.capture());
+        assertEquals(List.of(1L, 2L), volcados.getAllValues().stream().map(VolcadoReservas::getSecuencia).toList());
+        reservas.detener();
+    }
+
+    /**
+     * Prueba que si el commit del volcado falla después de llegar a la base de datos, el
+     * reintento ve la secuencia ya volcada y no aplica las reservas otra vez.
+     */
+    @Test
+    void testVolcadoConCommitDudosoNoDuplica() throws Exception {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        doThrow(new TransactionSystemException("conexión perdida durante el commit")).doNothing()
+                .when(transactionManager).commit(any());
+        ReservasCalientes reservas = new ReservasCalientes(Set.of(1L), 4, directorio, Duration.ofHours(1),
+                inventarioRepository, volcadoRepository, transactionManager);
+        reservas.iniciar();
+
+        reservas.reservar(1L, 2);
+        reservas.volcar();
+        when(volcadoRepository.findById(VolcadoReservas.ID)).thenReturn(Optional.of(new VolcadoReservas(VolcadoReservas.ID, 1L)));
+        reservas.volcar();
+
+        verify(inventarioRepository, times(1)).aplicarReservas(anyMap());
+        assertEquals(1, segmentos().size());
+        reservas.detener();
+    }
+
+    /**
+     * Prueba que tras una caída se reproducen al arrancar las reservas del journal no volcadas,
+     * saltando las que ya constaban como volcadas, y que los contadores parten del estado aplicado.
+     */
+    @Test
+    void testReproduccionTrasCaida() throws Exception {
+        ReservasCalientes caida = nuevasReservas();
+        caida.iniciar();
+        caida.reservar(1L, 1);
+        caida.reservar(1L, 2);
+        caida.reservar(1L, 4);
+        // Se simula que la primera ya se había volcado y la instancia muere sin volcar el resto
+
+        when(volcadoRepository.findById(VolcadoReservas.ID)).thenReturn(Optional.of(new VolcadoReservas(VolcadoReservas.ID, 1L)));
+        when(inventarioRepository.findByProductoId(1L)).thenReturn(Optional.of(new Inventario(5L, 1L, 3, 9)));
+        ReservasCalientes reinicio = nuevasReservas();
+        reinicio.iniciar();
+
+        verify(inventarioRepository).aplicarReservas(Map.of(1L, 6L));
+        assertEquals(3, reinicio.actual(1L).getCantidadDisponible());
+        assertTrue(reinicio.reservar(1L, 1).isPresent());
+        assertEquals(2, reinicio.actual(1L).getCantidadDisponible());
+        reinicio.detener();
+    }
+
+    /**
+     * Prueba que con el escritor del journal detenido la reserva se rechaza en lugar de quedarse
+     * esperando, y que las unidades vuelven al contador.
+     */
+    @Test
+    void testReservaConJournalDetenido() throws Exception {
+        ReservasCalientes reservas = nuevasReservas();
+        reservas.iniciar();
+        reservas.reservar(1L, 2);
+        reservas.detener();
+
+        assertThrows(IllegalStateException.class, () -> reservas.reservar(1L, 3));
+        assertEquals(8, reservas.actual(1L).getCantidadDisponible());
+        verify(inventarioRepository).aplicarReservas(Map.of(1L, 2L));
+    }
+
+    /**
+     * Prueba de estrés sobre un producto caliente: muchos hilos reservan a la vez, nunca se
+     * reserva más de lo disponible y todo lo aceptado llega al volcado.
+     */
+    @Test
+    void testReservasConcurrentesSinSobreventa() throws Exception {
+        int stockInicial = 100_000;
+        int hilos = 32;
+        int intentosPorHilo = 5_000;
+        when(inventarioRepository.findByProductoId(1L)).thenReturn(Optional.of(new Inventario(5L, 1L, stockInicial, 0)));
+        ReservasCalientes reservas = new ReservasCalientes(Set.of(1L), 16, directorio, Duration.ofMillis(20),
+                inventarioRepository, volcadoRepository, mock(PlatformTransactionManager.class));
+        reservas.iniciar();
+
+        AtomicInteger aceptadas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int i = 0; i < intentosPorHilo; i++) {
+                    if (reservas.reservar(1L, 1).isPresent()) {
+                        aceptadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        reservas.detener();
+
+        assertEquals(stockInicial, aceptadas.get());
+        assertEquals(0, reservas.actual(1L).getCantidadDisponible());
+        ArgumentCaptor<Map<Long, Long>> volcados = ArgumentCaptor.forClass(Map.class);
+        verify(inventarioRepository, atLeastOnce()).aplicarReservas(volcados.capture());
+        assertEquals(stockInicial, volcados.getAllValues().stream().mapToLong(m -> m.get(1L)).sum());
+    }
+
+    // Sin volcados periódicos durante el test: se vuelca a mano
+    private ReservasCalientes nuevasReservas() {
+        return new ReservasCalientes(Set.of(1L), 4, directorio, Duration.ofHours(1),
+                inventarioRepository, volcadoRepository, mock(PlatformTransactionManager.class));
+    }
+
+    private List<Path> segmentos() throws Exception {
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            return ficheros.toList();
+        }
+    }
+}
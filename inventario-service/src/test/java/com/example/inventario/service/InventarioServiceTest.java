@@ -1,21 +1,51 @@
 package com.example.inventario.service;
 
+import com.example.inventario.cache.ProductoCache;
 import com.example.inventario.dto.InventarioDTO;
 import com.example.inventario.dto.ProductoApiResponse;
 import com.example.inventario.dto.ProductoResponse;
+import com.example.inventario.dto.ProductosApiResponse;
 import com.example.inventario.event.InventarioEventPublisher;
+import com.example.inventario.exception.SolicitudInvalidaException;
 import com.example.inventario.exception.ResourceNotFoundException;
+import com.example.inventario.exception.StockInsuficienteException;
 import com.example.inventario.feign.ProductoClient;
+import com.example.inventario.jsonapi.JsonApiError;
 import com.example.inventario.model.Inventario;
 import com.example.inventario.repository.InventarioRepository;
+import com.example.inventario.reservas.AgrupadorReservas;
+import com.example.inventario.reservas.ReservasCalientes;
 import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -32,15 +62,25 @@ class InventarioServiceTest {
     private ProductoClient productoClient;
     @Mock
     private InventarioEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ReservasCalientes reservasCalientes;
+    @Mock
+    private AgrupadorReservas agrupadorReservas;
 
-    @InjectMocks
     private InventarioService inventarioService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ProductoCache productoCache = new ProductoCache(productoClient, new SimpleMeterRegistry(),
+                new SimpleAsyncTaskExecutorBuilder(), 100, Duration.ofMinutes(1), Duration.ofHours(1), Duration.ofSeconds(30),
+                Duration.ofMillis(2), 100);
         // Inyecta manualmente el API Key para los tests
-        inventarioService.setProductosApiKey("2f8e1b9c-4a7d-4c2b-9e3a-123456789abc");
+        productoCache.setProductosApiKey("2f8e1b9c-4a7d-4c2b-9e3a-123456789abc");
+        inventarioService = new InventarioService(inventarioRepository, productoCache, eventPublisher, reservasCalientes,
+                agrupadorReservas, transactionManager);
     }
 
     /**
@@ -88,15 +128,14 @@ class InventarioServiceTest {
         Integer cantidadInicial = 10;
         Integer cantidadActualizar = 3;
 
+        // La reserva condicional devuelve la fila ya actualizada
         Inventario inventario = new Inventario();
         inventario.setId(1L);
         inventario.setProductoId(productoId);
-        inventario.setCantidadDisponible(cantidadInicial);
-        inventario.setCantidadReservada(0);
+        inventario.setCantidadDisponible(cantidadInicial - cantidadActualizar);
+        inventario.setCantidadReservada(cantidadActualizar);
 
-        when(inventarioRepository.findByProductoId(productoId)).thenReturn(java.util.Optional.of(inventario));
-        when(inventarioRepository.save(any(Inventario.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventarioRepository.reservar(productoId, cantidadActualizar)).thenReturn(java.util.Optional.of(inventario));
 
         // Mock de respuesta del microservicio de productos (DTO anidado)
         ProductoResponse productoResponse = new ProductoResponse(productoId, "Producto", "desc", 10.0, 100);
@@ -168,4 +207,350 @@ class InventarioServiceTest {
         );
         assertTrue(ex.getMessage().contains("Error al comunicarse"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Prueba que la consulta a productos y la lectura local se ejecutan a la vez:
+     * la respuesta remota no llega hasta que la lectura local ha empezado.
+     */
+    @Test
+    void testConsultarInventarioEnParalelo() {
+        Long productoId = 1L;
+        Inventario inventario = new Inventario(5L, productoId, 10, 0);
+        CountDownLatch lecturaLocal = new CountDownLatch(1);
+        when(inventarioRepository.findByProductoId(productoId)).thenAnswer(invocation -> {
+            lecturaLocal.countDown();
+            return java.util.Optional.of(inventario);
+        });
+        ProductoApiResponse productoApiResponse = productoApiResponse(productoId);
+        when(productoClient.obtenerProductoPorId(eq(productoId), anyString())).thenAnswer(invocation -> {
+            assertTrue(lecturaLocal.await(5, TimeUnit.SECONDS), "La lectura local esperó a la consulta remota");
+            return productoApiResponse;
+        });
+
+        var response = inventarioService.consultarInventario(productoId);
+
+        assertEquals("Producto", response.getData().getAttributes().getNombreProducto());
+        assertEquals(10, response.getData().getAttributes().getCantidadDisponible());
+    }
+
+    /**
+     * Prueba que si el microservicio de productos falla no se abre la transacción de escritura.
+     */
+    @Test
+    void testActualizarInventarioFalloAPISinEscritura() {
+        Long productoId = 1L;
+        when(inventarioRepository.findByProductoId(productoId))
+            .thenReturn(java.util.Optional.of(new Inventario(5L, productoId, 10, 0)));
+        doThrow(FeignException.class).when(productoClient).obtenerProductoPorId(eq(productoId), anyString());
+        InventarioDTO inventarioDTO = new InventarioDTO();
+        inventarioDTO.setProductoId(productoId);
+        inventarioDTO.setCantidad(3);
+
+        assertThrows(IllegalArgumentException.class, () -> inventarioService.actualizarInventario(inventarioDTO));
+
+        verify(inventarioRepository, never()).reservar(any(), anyInt());
+        verify(eventPublisher, never()).publishInventarioActualizadoEvent(any(), any());
+    }
+
+    private static ProductoApiResponse productoApiResponse(Long productoId) {
+        ProductoApiResponse.Data data = new ProductoApiResponse.Data();
+        data.setType("productos");
+        data.setId(productoId.toString());
+        data.setAttributes(new ProductoResponse(productoId, "Producto", "desc", 10.0, 100));
+        ProductoApiResponse productoApiResponse = new ProductoApiResponse();
+        productoApiResponse.setData(data);
+        return productoApiResponse;
+    }
+
+    /**
+     * Prueba que una segunda consulta del mismo producto no vuelve a llamar a productos-service.
+     */
+    @Test
+    void testConsultarInventarioUsaCacheDeProductos() {
+        Long productoId = 1L;
+        when(inventarioRepository.findByProductoId(productoId))
+            .thenReturn(java.util.Optional.of(new Inventario(5L, productoId, 10, 0)));
+        ProductoApiResponse productoApiResponse = productoApiResponse(productoId);
+        when(productoClient.obtenerProductoPorId(eq(productoId), anyString())).thenReturn(productoApiResponse);
+
+        inventarioService.consultarInventario(productoId);
+        var response = inventarioService.consultarInventario(productoId);
+
+        assertEquals("Producto", response.getData().getAttributes().getNombreProducto());
+        verify(productoClient, times(1)).obtenerProductoPorId(eq(productoId), anyString());
+    }
+
+    /**
+     * Prueba que un producto inexistente en productos-service (404) se informa como recurso no encontrado.
+     */
+    @Test
+    void testConsultarInventarioProductoInexistente() {
+        Long productoId = 7L;
+        when(inventarioRepository.findByProductoId(productoId)).thenReturn(java.util.Optional.empty());
+        Request request = Request.create(Request.HttpMethod.GET, "/api/productos/7", Map.of(), null, StandardCharsets.UTF_8, null);
+        when(productoClient.obtenerProductoPorId(eq(productoId), anyString()))
+            .thenThrow(new FeignException.NotFound("no encontrado", request, null, Map.of()));
+
+        Exception ex = assertThrows(ResourceNotFoundException.class, () -> inventarioService.consultarInventario(productoId));
+
+        assertTrue(ex.getMessage().contains("Producto no encontrado"));
+    }
+
+    /**
+     * Prueba la consulta de varios productos: una sola lectura IN y una sola llamada por IDs a
+     * productos-service, con los productos o inventarios inexistentes informados en meta.errores.
+     */
+    @Test
+    void testConsultarInventarios() {
+        when(inventarioRepository.findByProductoIdIn(List.of(1L, 2L, 3L)))
+            .thenReturn(List.of(new Inventario(5L, 1L, 10, 0), new Inventario(6L, 3L, 4, 1)));
+        ProductosApiResponse productos = new ProductosApiResponse();
+        productos.setData(List.of(productoApiResponse(1L).getData(), productoApiResponse(2L).getData()));
+        when(productoClient.obtenerProductosPorIds(any(), anyString())).thenReturn(productos);
+
+        var response = inventarioService.consultarInventarios(List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(1, response.getData().size());
+        assertEquals("5", response.getData().get(0).getId());
+        assertEquals("Producto", response.getData().get(0).getAttributes().getNombreProducto());
+        Map<?, ?> errores = (Map<?, ?>) response.getMeta().get("errores");
+        assertEquals(Set.of("2", "3"), errores.keySet());
+        assertTrue(((JsonApiError.ErrorObject) errores.get("2")).getDetail().contains("Inventario no encontrado"));
+        assertTrue(((JsonApiError.ErrorObject) errores.get("3")).getDetail().contains("Producto no encontrado"));
+        verify(productoClient, times(1)).obtenerProductosPorIds(any(), anyString());
+        verify(productoClient, never()).obtenerProductoPorId(any(), anyString());
+        verify(inventarioRepository, never()).findByProductoId(any());
+    }
+
+    /**
+     * Prueba que si falla la consulta por IDs a productos-service cada producto se informa con
+     * un error 502, sin que la petición falle.
+     */
+    @Test
+    void testConsultarInventariosFalloAPI() {
+        when(inventarioRepository.findByProductoIdIn(List.of(1L, 2L)))
+            .thenReturn(List.of(new Inventario(5L, 1L, 10, 0)));
+        doThrow(FeignException.class).when(productoClient).obtenerProductosPorIds(any(), anyString());
+
+        var response = inventarioService.consultarInventarios(List.of(1L, 2L));
+
+        assertTrue(response.getData().isEmpty());
+        Map<?, ?> errores = (Map<?, ?>) response.getMeta().get("errores");
+        assertEquals("502", ((JsonApiError.ErrorObject) errores.get("1")).getStatus());
+        assertEquals("502", ((JsonApiError.ErrorObject) errores.get("2")).getStatus());
+    }
+
+    /**
+     * Prueba que pedir más productos que inventario.consulta-ids.maximo se rechaza como
+     * solicitud inválida sin consultar nada.
+     */
+    @Test
+    void testConsultarInventariosDemasiadosIds() {
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.consultarInventarios(ids));
+        verifyNoInteractions(inventarioRepository, productoClient);
+    }
+
+    /**
+     * Prueba que el lote suma las líneas del mismo producto, reserva en orden de productoId y,
+     * si una línea no alcanza, falla entero sin publicar eventos.
+     */
+    @Test
+    void testReservarLoteTodoONada() {
+        when(productoClient.obtenerProductosPorIds(any(), anyString())).thenAnswer(invocation -> productosApiResponse(invocation.getArgument(0)));
+        when(inventarioRepository.reservarLote(any())).thenReturn(List.of(), List.of(2L));
+        when(inventarioRepository.findByProductoIdIn(any())).thenAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0)).stream()
+            .map(id -> new Inventario(id + 10, id, 1, 5))
+            .toList());
+        List<InventarioDTO> lineas = List.of(new InventarioDTO(3L, 1), new InventarioDTO(1L, 2), new InventarioDTO(3L, 2));
+
+        var response = inventarioService.reservarLote(lineas);
+
+        assertEquals(List.of("11", "13"), response.getData().stream().map(d -> d.getId()).toList());
+        ArgumentCaptor<Map<Long, Integer>> reservas = ArgumentCaptor.forClass(Map.class);
+        verify(inventarioRepository).reservarLote(reservas.capture());
+        assertEquals(List.of(1L, 3L), List.copyOf(reservas.getValue().keySet()));
+        assertEquals(3, reservas.getValue().get(3L));
+        verify(eventPublisher, times(2)).publishInventarioActualizadoEvent(any(), any());
+
+        Exception ex = assertThrows(StockInsuficienteException.class,
+            () -> inventarioService.reservarLote(List.of(new InventarioDTO(1L, 1), new InventarioDTO(2L, 4))));
+        assertTrue(ex.getMessage().contains("producto ID 2 (disponible: 1, solicitado: 4)"));
+        verify(transactionManager).rollback(any());
+        verify(eventPublisher, times(2)).publishInventarioActualizadoEvent(any(), any());
+    }
+
+    /**
+     * Prueba que si una línea de un producto caliente no alcanza se liberan las reservas en
+     * memoria ya hechas en el lote y se revierte la transacción.
+     */
+    @Test
+    void testReservarLoteLiberaCalientes() {
+        when(productoClient.obtenerProductosPorIds(any(), anyString())).thenAnswer(invocation -> productosApiResponse(invocation.getArgument(0)));
+        when(reservasCalientes.esCaliente(any())).thenAnswer(invocation -> (Long) invocation.getArgument(0) > 1L);
+        when(inventarioRepository.reservarLote(any())).thenReturn(List.of());
+        when(inventarioRepository.findByProductoIdIn(any())).thenReturn(List.of(new Inventario(11L, 1L, 5, 0)));
+        when(reservasCalientes.reservar(2L, 1)).thenReturn(java.util.Optional.of(new Inventario(12L, 2L, 9, 1)));
+        when(reservasCalientes.reservar(3L, 1)).thenReturn(java.util.Optional.empty());
+        when(reservasCalientes.actual(3L)).thenReturn(new Inventario(13L, 3L, 0, 10));
+
+        assertThrows(StockInsuficienteException.class, () -> inventarioService.reservarLote(
+            List.of(new InventarioDTO(3L, 1), new InventarioDTO(2L, 1), new InventarioDTO(1L, 1))));
+
+        verify(reservasCalientes).liberar(2L, 1);
+        verify(transactionManager).rollback(any());
+        verify(eventPublisher, never()).publishInventarioActualizadoEvent(any(), any());
+    }
+
+    /**
+     * Prueba de estrés con carritos que se solapan, enviados con las líneas desordenadas. Cada fila
+     * simulada se bloquea al actualizarla y se libera en el commit o el rollback, como en la base de
+     * datos; una espera de bloqueo agotada cuenta como interbloqueo. El orden por productoId debe
+     * dejarlo en cero, sin vender de más ni perder unidades en los lotes revertidos. Solo comprueba
+     * el orden que impone el servicio; en la base de datos depende además del índice único sobre
+     * producto_id.
+     */
+    @Test
+    void testReservasLoteSolapadasSinInterbloqueos() throws Exception {
+        int productos = 20;
+        int stockInicial = 2_000;
+        int hilos = 16;
+        int carritosPorHilo = 300;
+        ReentrantLock[] filas = new ReentrantLock[productos + 1];
+        int[] disponible = new int[productos + 1];
+        for (int p = 1; p <= productos; p++) {
+            filas[p] = new ReentrantLock();
+            disponible[p] = stockInicial;
+        }
+        // Bloqueos y cambios de la transacción en curso de cada hilo
+        ThreadLocal<List<Integer>> bloqueadas = ThreadLocal.withInitial(ArrayList::new);
+        ThreadLocal<Map<Integer, Integer>> deshacer = ThreadLocal.withInitial(java.util.HashMap::new);
+        AtomicInteger interbloqueos = new AtomicInteger();
+        when(productoClient.obtenerProductosPorIds(any(), anyString())).thenAnswer(invocation -> productosApiResponse(invocation.getArgument(0)));
+        when(inventarioRepository.reservarLote(any())).thenAnswer(invocation -> {
+            Map<Long, Integer> reservas = invocation.getArgument(0);
+            List<Long> fallidos = new ArrayList<>();
+            for (Map.Entry<Long, Integer> linea : reservas.entrySet()) {
+                int p = linea.getKey().intValue();
+                if (!filas[p].tryLock(2, TimeUnit.SECONDS)) {
+                    interbloqueos.incrementAndGet();
+                    throw new CannotAcquireLockException("Interbloqueo simulado en el producto " + p);
+                }
+                bloqueadas.get().add(p);
+                if (disponible[p] >= linea.getValue()) {
+                    disponible[p] -= linea.getValue();
+                    deshacer.get().merge(p, linea.getValue(), Integer::sum);
+                } else {
+                    fallidos.add(linea.getKey());
+                }
+            }
+            return fallidos;
+        });
+        when(inventarioRepository.findByProductoIdIn(any())).thenAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0)).stream()
+            .map(id -> new Inventario(id, id, disponible[id.intValue()], 0))
+            .toList());
+        doAnswer(invocation -> {
+            finTransaccion(filas, bloqueadas, deshacer, disponible, false);
+            return null;
+        }).when(transactionManager).commit(any());
+        doAnswer(invocation -> {
+            finTransaccion(filas, bloqueadas, deshacer, disponible, true);
+            return null;
+        }).when(transactionManager).rollback(any());
+
+        AtomicInteger confirmados = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        AtomicInteger unidadesConfirmadas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            long semilla = h;
+            tareas.add(executor.submit(() -> {
+                Random random = new Random(semilla);
+                salida.await();
+                for (int i = 0; i < carritosPorHilo; i++) {
+                    List<InventarioDTO> carrito = new ArrayList<>();
+                    int unidades = 0;
+                    for (int linea = 0; linea < 3 + random.nextInt(4); linea++) {
+                        int cantidad = 1 + random.nextInt(3);
+                        carrito.add(new InventarioDTO((long) (1 + random.nextInt(productos)), cantidad));
+                        unidades += cantidad;
+                    }
+                    try {
+                        inventarioService.reservarLote(carrito);
+                        confirmados.incrementAndGet();
+                        unidadesConfirmadas.addAndGet(unidades);
+                    } catch (StockInsuficienteException | CannotAcquireLockException ex) {
+                        rechazados.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int restante = 0;
+        for (int p = 1; p <= productos; p++) {
+            assertTrue(disponible[p] >= 0);
+            restante += disponible[p];
+        }
+        assertEquals(0, interbloqueos.get());
+        assertEquals(hilos * carritosPorHilo, confirmados.get() + rechazados.get());
+        assertEquals(productos * stockInicial - unidadesConfirmadas.get(), restante);
+    }
+
+    /**
+     * Prueba que un lote mal formado, o cuyas líneas del mismo producto suman más de lo que cabe
+     * en un entero, se rechaza como solicitud inválida sin tocar el inventario.
+     */
+    @Test
+    void testReservarLoteInvalido() {
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.reservarLote(List.of()));
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.reservarLote(
+            List.of(new InventarioDTO(1L, -1))));
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.reservarLote(
+            List.of(new InventarioDTO(1L, Integer.MAX_VALUE), new InventarioDTO(1L, 1))));
+
+        verifyNoInteractions(inventarioRepository, productoClient, transactionManager);
+    }
+
+    private static void finTransaccion(ReentrantLock[] filas, ThreadLocal<List<Integer>> bloqueadas,
+                                       ThreadLocal<Map<Integer, Integer>> deshacer, int[] disponible, boolean revertir) {
+        if (revertir) {
+            deshacer.get().forEach((p, cantidad) -> disponible[p] += cantidad);
+        }
+        deshacer.get().clear();
+        bloqueadas.get().forEach(p -> filas[p].unlock());
+        bloqueadas.get().clear();
+    }
+
+    private static ProductosApiResponse productosApiResponse(Collection<Long> productoIds) {
+        ProductosApiResponse productos = new ProductosApiResponse();
+        productos.setData(productoIds.stream().map(id -> productoApiResponse(id).getData()).toList());
+        return productos;
+    }
+
+    /**
+     * Prueba que una reserva que no afecta a ninguna fila se informa como stock insuficiente
+     * si el inventario existe, y como no encontrado si no existe.
+     */
+    @Test
+    void testActualizarInventarioStockInsuficiente() {
+        when(productoClient.obtenerProductoPorId(any(), anyString())).thenAnswer(invocation -> productoApiResponse(invocation.getArgument(0)));
+        when(inventarioRepository.reservar(any(), anyInt())).thenReturn(java.util.Optional.empty());
+        when(inventarioRepository.findByProductoId(1L)).thenReturn(java.util.Optional.of(new Inventario(5L, 1L, 2, 8)));
+        when(inventarioRepository.findByProductoId(2L)).thenReturn(java.util.Optional.empty());
+
+        Exception ex = assertThrows(StockInsuficienteException.class,
+            () -> inventarioService.actualizarInventario(new InventarioDTO(1L, 3)));
+        assertTrue(ex.getMessage().contains("disponible: 2"));
+        assertThrows(ResourceNotFoundException.class, () -> inventarioService.actualizarInventario(new InventarioDTO(2L, 3)));
+        verify(eventPublisher, never()).publishInventarioActualizadoEvent(any(), any());
+    }
+}
@@ -0,0 +1,30 @@
+-- Migración de productos.id de IDENTITY a la secuencia productos_seq.
+-- Ejecutar una sola vez, con productos-service detenido, en bases de datos creadas cuando Producto
+-- usaba GenerationType.IDENTITY. En bases nuevas no hace falta: ddl-auto crea tabla y secuencia.
+--
+-- SQL Server no permite quitar la propiedad IDENTITY de una columna, así que se copia la tabla
+-- conservando los ids. Los índices que falten los vuelve a crear ddl-auto=update al arrancar.
+SET XACT_ABORT ON;
+BEGIN TRANSACTION;
+
+CREATE TABLE productos_sin_identity (
+    id BIGINT NOT NULL PRIMARY KEY,
+    nombre VARCHAR(100),
+    descripcion VARCHAR(255),
+    precio NUMERIC(38, 2) NOT NULL,
+    stock INT,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO productos_sin_identity (id, nombre, descripcion, precio, stock)
+SELECT id, nombre, descripcion, precio, stock FROM productos;
+
+DROP TABLE productos;
+EXEC sp_rename 'productos_sin_identity', 'productos';
+
+-- Con allocationSize 50 (optimizador pooled) Hibernate usa los ids del bloque (valor - 49 .. valor],
+-- así que la secuencia empieza en MAX(id) + 50 para que el primer id nuevo sea MAX(id) + 1.
+DECLARE @inicio BIGINT = (SELECT ISNULL(MAX(id), 0) + 50 FROM productos);
+EXEC ('CREATE SEQUENCE productos_seq START WITH ' + CAST(@inicio AS VARCHAR(20)) + ' INCREMENT BY 50');
+
+COMMIT TRANSACTION;
@@ -0,0 +1,131 @@
+package com.example.productos.cache;
+
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import com.example.productos.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Caché en proceso de productos por ID delante de {@code findById}.
+ * Limitada por tamaño y por antigüedad; Caffeine decide qué entradas admitir y
+ * desalojar según su frecuencia de uso (W-TinyLFU), así que un recorrido puntual
+ * por muchos productos no expulsa a los que se leen continuamente.
+ *
+ * <p>Cada entrada es la carga en curso o ya resuelta, así que las lecturas simultáneas de un
+ * mismo ID que no está en caché comparten una sola consulta y su resultado o su excepción;
+ * la carga no retiene ningún bloqueo, de modo que otros IDs no esperan por ella. Las cargas
+ * fallidas no se quedan en la caché. Un "no encontrado" es un resultado esperado: la carga
+ * termina sin valor, en lugar de con excepción, para que Caffeine no lo registre como fallo
+ * con traza, y cada lector relanza la excepción compartida.</p>
+ *
+ * <p>Las escrituras invalidan la entrada en el momento y otra vez tras el commit. Invalidar
+ * descarta también una carga en curso: una lectura concurrente que obtuviera la versión
+ * anterior al commit no puede dejarla en la caché.</p>
+ */
+@Component
+public class ProductoCache implements MeterBinder {
+
+    private final AsyncCache<Long, ProductoResponse> cache;
+
+    public ProductoCache(@Value("${productos.cache.maximo-entradas:100000}") long maximoEntradas,
+                         @Value("${productos.cache.expiracion:10m}") Duration expiracion) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximoEntradas)
+                .expireAfterWrite(expiracion)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Devuelve el producto cacheado o lo carga con {@code cargador} en el hilo que llama.
+     * Quien llega mientras otro hilo carga el mismo ID espera esa misma carga.
+     */
+    public ProductoResponse obtener(Long id, Function<Long, ProductoResponse> cargador) {
+        Carga propia = new Carga();
+        CompletableFuture<ProductoResponse> enCache = cache.get(id, (clave, executor) -> propia);
+        if (enCache == propia) {
+            try {
+                propia.complete(cargador.apply(id));
+            } catch (ResourceNotFoundException e) {
+                propia.noEncontrado = e;
+                propia.complete(null);
+            } catch (RuntimeException | Error e) {
+                propia.completeExceptionally(e);
+            }
+        }
+        return esperar(enCache);
+    }
+
+    /** Solo consulta la caché, sin cargar ni esperar cargas en curso ni contar en las estadísticas. */
+    public ProductoResponse buscar(Long id) {
+        CompletableFuture<ProductoResponse> entrada = cache.asMap().get(id);
+        return entrada != null && entrada.isDone() && !entrada.isCompletedExceptionally() ? entrada.join() : null;
+    }
+
+    public void invalidar(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidarTodo() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public CacheStats estadisticas() {
+        return cache.synchronous().stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarProducto(ProductoGuardadoEvent event) {
+        invalidar(event.getProducto().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alEliminarProducto(ProductoEliminadoEvent event) {
+        invalidar(event.getProductoId());
+    }
+
+    /** Publica aciertos, fallos, desalojos y tamaño como métricas {@code cache.*} con {@code cache=productos}. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "productos");
+    }
+
+    // Relanza la misma excepción que obtuvo la carga compartida
+    private static ProductoResponse esperar(CompletableFuture<ProductoResponse> carga) {
+        try {
+            ProductoResponse producto = carga.join();
+            if (producto == null && carga instanceof Carga propia && propia.noEncontrado != null) {
+                throw propia.noEncontrado;
+            }
+            return producto;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // Sin valor y con noEncontrado: Caffeine retira la entrada sin tratarla como excepción
+    private static final class Carga extends CompletableFuture<ProductoResponse> {
+        // Se asigna antes de completar, así que quien ve la carga completada lo ve
+        private volatile ResourceNotFoundException noEncontrado;
+    }
+}
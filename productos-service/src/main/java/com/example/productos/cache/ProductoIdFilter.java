@@ -0,0 +1,123 @@
+package com.example.productos.cache;
+
+import com.example.productos.catalogo.ProductoFila;
+import com.example.productos.catalogo.ReceptorCatalogo;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Mapa de bits con los IDs de producto existentes, para responder "no existe" sin ir a la
+ * base de datos. Los IDs salen de una secuencia y son casi contiguos, así que se guardan en
+ * páginas de 65.536 bits (8 KiB) que solo se crean cuando contienen algún ID.
+ *
+ * <p>Un alta de esta instancia marca su ID antes del commit (un rollback deja un bit de más,
+ * que cuesta una consulta) y una baja lo desmarca después del commit. Las filas creadas
+ * fuera de esta instancia (otra instancia, SQL, una restauración) se marcan en la siguiente
+ * {@link ResincronizacionFiltroIds}: hasta entonces, como mucho
+ * {@code productos.filtro-ids.resincronizacion}, se responden con 404. Hasta que termina la
+ * carga inicial, o la primera resincronización si la carga falló, deja pasar todas las
+ * consultas.</p>
+ *
+ * <p>Métricas {@code productos.filtro.ids} por {@code resultado}: {@code evitada} (el ID no
+ * está marcado y no se consultó), {@code admitida} (se consultó) y {@code falso_positivo}
+ * (se consultó y no existía). Tasa de falsos positivos = falso_positivo / (falso_positivo +
+ * evitada).</p>
+ */
+@Component
+public class ProductoIdFilter implements ReceptorCatalogo {
+
+    private static final int BITS_PAGINA = 16;
+    private static final int MASCARA_PAGINA = (1 << BITS_PAGINA) - 1;
+
+    private final ConcurrentHashMap<Long, AtomicLongArray> paginas = new ConcurrentHashMap<>();
+    private volatile boolean listo;
+
+    private final Counter consultasEvitadas;
+    private final Counter consultasAdmitidas;
+    private final Counter falsosPositivos;
+
+    public ProductoIdFilter(MeterRegistry registry) {
+        this.consultasEvitadas = contador(registry, "evitada");
+        this.consultasAdmitidas = contador(registry, "admitida");
+        this.falsosPositivos = contador(registry, "falso_positivo");
+    }
+
+    /** {@code false} solo si el producto seguro que no existe. */
+    public boolean puedeExistir(Long id) {
+        if (!listo) {
+            return true;
+        }
+        boolean presente = contiene(id);
+        (presente ? consultasAdmitidas : consultasEvitadas).increment();
+        return presente;
+    }
+
+    /** La consulta que {@link #puedeExistir} dejó pasar no encontró el producto. */
+    public void registrarFalsoPositivo() {
+        if (listo) {
+            falsosPositivos.increment();
+        }
+    }
+
+    public void agregar(long id) {
+        if (id < 0) {
+            return;
+        }
+        AtomicLongArray pagina = paginas.computeIfAbsent(id >>> BITS_PAGINA, p -> new AtomicLongArray(1 << (BITS_PAGINA - 6)));
+        int bit = (int) (id & MASCARA_PAGINA);
+        pagina.getAndAccumulate(bit >>> 6, 1L << bit, (actual, mascara) -> actual | mascara);
+    }
+
+    public void quitar(long id) {
+        AtomicLongArray pagina = id < 0 ? null : paginas.get(id >>> BITS_PAGINA);
+        if (pagina != null) {
+            int bit = (int) (id & MASCARA_PAGINA);
+            pagina.getAndAccumulate(bit >>> 6, 1L << bit, (actual, mascara) -> actual & ~mascara);
+        }
+    }
+
+    @Override
+    public void recibir(ProductoFila producto) {
+        agregar(producto.getId());
+    }
+
+    @Override
+    public void cargaCompleta() {
+        listo = true;
+    }
+
+    // Dentro de la transacción: el ID queda marcado antes de que la fila sea visible para otros
+    @EventListener
+    public void alGuardarProducto(ProductoGuardadoEvent event) {
+        agregar(event.getProducto().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alEliminarProducto(ProductoEliminadoEvent event) {
+        quitar(event.getProductoId());
+    }
+
+    private boolean contiene(Long id) {
+        if (id == null || id < 0) {
+            return false;
+        }
+        AtomicLongArray pagina = paginas.get(id >>> BITS_PAGINA);
+        int bit = (int) (id & MASCARA_PAGINA);
+        return pagina != null && (pagina.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    private static Counter contador(MeterRegistry registry, String resultado) {
+        return Counter.builder("productos.filtro.ids")
+                .description("Consultas de producto por ID según el filtro de IDs existentes")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.productos.cache;
+
+import com.example.productos.repository.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Marca en el {@link ProductoIdFilter}, cada {@code productos.filtro-ids.resincronizacion}, los
+ * IDs de la tabla que no vio pasar: filas creadas por otras instancias, por SQL o en una
+ * restauración. Recorre solo la clave primaria y únicamente añade bits, así que no compite con
+ * las altas y bajas de esta instancia; las bajas hechas fuera dejan un bit de más, que cuesta
+ * una consulta. Con intervalo cero no se resincroniza.
+ */
+@Slf4j
+@Component
+public class ResincronizacionFiltroIds {
+
+    private final ProductoIdFilter productoIdFilter;
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration intervalo;
+    private ScheduledExecutorService programador;
+
+    public ResincronizacionFiltroIds(ProductoIdFilter productoIdFilter, ProductoRepository productoRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${productos.filtro-ids.resincronizacion:1m}") Duration intervalo) {
+        this.productoIdFilter = productoIdFilter;
+        this.productoRepository = productoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.intervalo = intervalo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (intervalo.isZero() || intervalo.isNegative()) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("resincronizacion-filtro-ids").daemon().factory());
+        long periodo = intervalo.toMillis();
+        programador.scheduleWithFixedDelay(this::resincronizar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    void resincronizar() {
+        long inicio = System.nanoTime();
+        long[] ids = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Long> existentes = productoRepository.streamIds()) {
+                    existentes.forEach(id -> {
+                        productoIdFilter.agregar(id);
+                        ids[0]++;
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("No se pudo resincronizar el filtro de IDs; se reintenta en {}", intervalo, e);
+            return;
+        }
+        // Si la carga inicial falló, el filtro empieza a responder desde aquí
+        productoIdFilter.cargaCompleta();
+        log.debug("Filtro de IDs resincronizado: {} IDs en {} ms", ids[0], (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+}
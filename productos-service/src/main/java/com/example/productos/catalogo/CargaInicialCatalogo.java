@@ -0,0 +1,58 @@
+package com.example.productos.catalogo;
+
+import com.example.productos.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Recorre la tabla de productos una sola vez al arrancar y reparte cada fila entre las
+ * estructuras en memoria que la necesitan, en lugar de que cada una haga su propio recorrido.
+ * Si la carga falla, los receptores siguen sin marcarse como completos y cada uno aplica su
+ * comportamiento degradado; la aplicación arranca igualmente.
+ */
+@Slf4j
+@Component
+public class CargaInicialCatalogo {
+
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<ReceptorCatalogo> receptores;
+
+    public CargaInicialCatalogo(ProductoRepository productoRepository, PlatformTransactionManager transactionManager,
+                                List<ReceptorCatalogo> receptores) {
+        this.productoRepository = productoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.receptores = receptores;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        long inicio = System.nanoTime();
+        long[] filas = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ProductoFila> productos = productoRepository.streamCatalogo()) {
+                    productos.forEach(p -> {
+                        for (ReceptorCatalogo receptor : receptores) {
+                            receptor.recibir(p);
+                        }
+                        filas[0]++;
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el catálogo en memoria tras leer {} productos", filas[0], e);
+            return;
+        }
+        receptores.forEach(ReceptorCatalogo::cargaCompleta);
+        log.info("Catálogo cargado en memoria: {} productos en {} ms", filas[0], (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
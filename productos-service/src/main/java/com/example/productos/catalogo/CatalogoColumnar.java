@@ -0,0 +1,301 @@
+package com.example.productos.catalogo;
+
+import com.example.productos.dto.EstadisticasCatalogoResponse;
+import com.example.productos.dto.ProductoPrecioResponse;
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.dto.RangoPreciosResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copia en memoria del catálogo organizada por columnas para agregados: IDs en {@code long[]},
+ * precios en céntimos en {@code long[]} y stock en {@code int[]}, todas con la misma posición
+ * por producto. Los agregados recorren arrays primitivos contiguos sin crear objetos por fila.
+ *
+ * <p>Se llena con la carga inicial del catálogo y se mantiene con los eventos de producto
+ * tras cada commit. Las bajas mueven el último producto al hueco, así que las columnas no
+ * tienen huecos ni marcas de borrado. Los IDs borrados mientras dura la carga se recuerdan
+ * hasta que termina, para que una fila leída antes del borrado no vuelva a aparecer.</p>
+ */
+@Component
+public class CatalogoColumnar implements ReceptorCatalogo {
+
+    private static final int ESCALA_PRECIO = 2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IndiceIds posiciones = new IndiceIds(1024);
+    private long[] ids = new long[1024];
+    private long[] precios = new long[1024];
+    private int[] stocks = new int[1024];
+    private int tamano;
+    // Borrados durante la carga inicial; solo se consultan hasta cargaCompleta
+    private Set<Long> eliminadosEnCarga = new HashSet<>();
+    private volatile boolean listo;
+
+    @Override
+    public void recibir(ProductoFila producto) {
+        // Lo aplicado por eventos durante la carga es más reciente: no se pisa
+        guardar(producto.getId(), producto.getPrecio(), producto.getStock(), false);
+    }
+
+    @Override
+    public void cargaCompleta() {
+        lock.writeLock().lock();
+        try {
+            eliminadosEnCarga = Set.of();
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarProducto(ProductoGuardadoEvent event) {
+        ProductoResponse producto = event.getProducto();
+        guardar(producto.getId(), producto.getPrecio(), producto.getStock(), true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alEliminarProducto(ProductoEliminadoEvent event) {
+        eliminar(event.getProductoId());
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    public void guardar(long id, BigDecimal precio, Integer stock, boolean reemplazar) {
+        long centimos = aCentimos(precio);
+        int unidades = stock == null ? 0 : stock;
+        lock.writeLock().lock();
+        try {
+            if (!listo && !eliminadosEnCarga.isEmpty()) {
+                if (!reemplazar && eliminadosEnCarga.contains(id)) {
+                    return;
+                }
+                if (reemplazar) {
+                    eliminadosEnCarga.remove(id);
+                }
+            }
+            int posicion = posiciones.obtener(id);
+            if (posicion < 0) {
+                if (tamano == ids.length) {
+                    int capacidad = tamano + (tamano >> 1);
+                    ids = Arrays.copyOf(ids, capacidad);
+                    precios = Arrays.copyOf(precios, capacidad);
+                    stocks = Arrays.copyOf(stocks, capacidad);
+                }
+                posicion = tamano++;
+                ids[posicion] = id;
+                posiciones.poner(id, posicion);
+            } else if (!reemplazar) {
+                return;
+            }
+            precios[posicion] = centimos;
+            stocks[posicion] = unidades;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(long id) {
+        lock.writeLock().lock();
+        try {
+            if (!listo) {
+                eliminadosEnCarga.add(id);
+            }
+            int posicion = posiciones.obtener(id);
+            if (posicion < 0) {
+                return;
+            }
+            int ultima = --tamano;
+            if (posicion != ultima) {
+                ids[posicion] = ids[ultima];
+                precios[posicion] = precios[ultima];
+                stocks[posicion] = stocks[ultima];
+                posiciones.poner(ids[posicion], posicion);
+            }
+            posiciones.quitar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public EstadisticasCatalogoResponse estadisticas() {
+        lock.readLock().lock();
+        try {
+            if (tamano == 0) {
+                return new EstadisticasCatalogoResponse(0, 0, BigDecimal.ZERO.setScale(ESCALA_PRECIO), null, null, null);
+            }
+            long stockTotal = 0;
+            long sumaPrecios = 0;
+            long minimo = Long.MAX_VALUE;
+            long maximo = Long.MIN_VALUE;
+            // valor = Σ precio·stock; se acumula en long y solo si se desborda se pasa lo acumulado a BigInteger
+            long valor = 0;
+            BigInteger valorDesbordado = BigInteger.ZERO;
+            for (int i = 0; i < tamano; i++) {
+                long precio = precios[i];
+                int stock = stocks[i];
+                stockTotal += stock;
+                sumaPrecios += precio;
+                minimo = Math.min(minimo, precio);
+                maximo = Math.max(maximo, precio);
+                long parcial;
+                try {
+                    parcial = Math.multiplyExact(precio, (long) stock);
+                } catch (ArithmeticException e) {
+                    valorDesbordado = valorDesbordado.add(BigInteger.valueOf(precio).multiply(BigInteger.valueOf(stock)));
+                    continue;
+                }
+                long suma = valor + parcial;
+                if (((valor ^ suma) & (parcial ^ suma)) < 0) {
+                    valorDesbordado = valorDesbordado.add(BigInteger.valueOf(valor));
+                    valor = parcial;
+                } else {
+                    valor = suma;
+                }
+            }
+            BigInteger valorTotal = valorDesbordado.add(BigInteger.valueOf(valor));
+            return EstadisticasCatalogoResponse.builder()
+                    .productos(tamano)
+                    .stockTotal(stockTotal)
+                    .valorInventario(new BigDecimal(valorTotal, ESCALA_PRECIO))
+                    .precioMinimo(deCentimos(minimo))
+                    .precioMaximo(deCentimos(maximo))
+                    .precioMedio(BigDecimal.valueOf(sumaPrecios, ESCALA_PRECIO)
+                            .divide(BigDecimal.valueOf(tamano), ESCALA_PRECIO, RoundingMode.HALF_UP))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Los {@code n} productos más caros, de mayor a menor precio (a igual precio, menor ID primero). */
+    public List<ProductoPrecioResponse> masCaros(int n) {
+        lock.readLock().lock();
+        try {
+            // Montículo de mínimos con las n mejores posiciones vistas: O(tamaño · log n) sin ordenar todo
+            int[] monticulo = new int[Math.min(n, tamano)];
+            int ocupadas = 0;
+            for (int i = 0; i < tamano; i++) {
+                if (ocupadas < monticulo.length) {
+                    monticulo[ocupadas] = i;
+                    subir(monticulo, ocupadas++);
+                } else if (monticulo.length > 0 && antes(i, monticulo[0])) {
+                    monticulo[0] = i;
+                    bajar(monticulo, ocupadas);
+                }
+            }
+            List<ProductoPrecioResponse> resultado = new ArrayList<>(ocupadas);
+            while (ocupadas > 0) {
+                int posicion = monticulo[0];
+                resultado.add(new ProductoPrecioResponse(ids[posicion], deCentimos(precios[posicion]), stocks[posicion]));
+                monticulo[0] = monticulo[--ocupadas];
+                bajar(monticulo, ocupadas);
+            }
+            return resultado.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Histograma de precios en {@code rangos} tramos de igual anchura entre el mínimo y el máximo. */
+    public List<RangoPreciosResponse> histogramaPrecios(int rangos) {
+        lock.readLock().lock();
+        try {
+            if (tamano == 0) {
+                return List.of();
+            }
+            long minimo = Long.MAX_VALUE;
+            long maximo = Long.MIN_VALUE;
+            for (int i = 0; i < tamano; i++) {
+                minimo = Math.min(minimo, precios[i]);
+                maximo = Math.max(maximo, precios[i]);
+            }
+            long anchura = Math.max(1, (maximo - minimo) / rangos + 1);
+            long[] cuentas = new long[rangos];
+            for (int i = 0; i < tamano; i++) {
+                cuentas[(int) Math.min(rangos - 1, (precios[i] - minimo) / anchura)]++;
+            }
+            List<RangoPreciosResponse> histograma = new ArrayList<>(rangos);
+            for (int r = 0; r < rangos; r++) {
+                long desde = minimo + r * anchura;
+                long hasta = r == rangos - 1 ? Math.max(maximo, desde) : desde + anchura;
+                histograma.add(new RangoPreciosResponse(deCentimos(desde), deCentimos(hasta), cuentas[r]));
+            }
+            return histograma;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return tamano;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // true si la posición a va antes que b en el ranking (más cara, o igual de cara y menor ID)
+    private boolean antes(int a, int b) {
+        return precios[a] != precios[b] ? precios[a] > precios[b] : ids[a] < ids[b];
+    }
+
+    private void subir(int[] monticulo, int i) {
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (!antes(monticulo[padre], monticulo[i])) {
+                return;
+            }
+            intercambiar(monticulo, i, padre);
+            i = padre;
+        }
+    }
+
+    private void bajar(int[] monticulo, int ocupadas) {
+        int i = 0;
+        while (true) {
+            int hijo = 2 * i + 1;
+            if (hijo >= ocupadas) {
+                return;
+            }
+            if (hijo + 1 < ocupadas && antes(monticulo[hijo], monticulo[hijo + 1])) {
+                hijo++;
+            }
+            if (!antes(monticulo[i], monticulo[hijo])) {
+                return;
+            }
+            intercambiar(monticulo, i, hijo);
+            i = hijo;
+        }
+    }
+
+    private static void intercambiar(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    private static long aCentimos(BigDecimal precio) {
+        return precio == null ? 0 : precio.setScale(ESCALA_PRECIO, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal deCentimos(long centimos) {
+        return BigDecimal.valueOf(centimos, ESCALA_PRECIO);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.productos.catalogo;
+
+import java.util.Arrays;
+
+/**
+ * Mapa ID de producto → posición, con claves y valores en arrays primitivos (sin Long ni
+ * Integer por entrada). Direccionamiento abierto con sondeo lineal; al borrar se desplazan
+ * las entradas siguientes hacia atrás, así que no quedan marcas de borrado. No es seguro
+ * para hilos: lo protege quien lo usa.
+ */
+final class IndiceIds {
+
+    private static final long VACIO = Long.MIN_VALUE;
+
+    private long[] claves;
+    private int[] valores;
+    private int mascara;
+    private int tamano;
+
+    IndiceIds(int capacidadEsperada) {
+        reservar(capacidadTabla(capacidadEsperada));
+    }
+
+    /** Posición del ID, o -1 si no está. */
+    int obtener(long id) {
+        for (int i = hash(id) & mascara; ; i = (i + 1) & mascara) {
+            long clave = claves[i];
+            if (clave == id) {
+                return valores[i];
+            }
+            if (clave == VACIO) {
+                return -1;
+            }
+        }
+    }
+
+    void poner(long id, int valor) {
+        // Factor de carga máximo 0,5: los sondeos se mantienen cortos
+        if ((tamano + 1) * 2 > claves.length) {
+            redimensionar(claves.length * 2);
+        }
+        for (int i = hash(id) & mascara; ; i = (i + 1) & mascara) {
+            if (claves[i] == VACIO) {
+                claves[i] = id;
+                valores[i] = valor;
+                tamano++;
+                return;
+            }
+            if (claves[i] == id) {
+                valores[i] = valor;
+                return;
+            }
+        }
+    }
+
+    void quitar(long id) {
+        int hueco = hash(id) & mascara;
+        while (claves[hueco] != id) {
+            if (claves[hueco] == VACIO) {
+                return;
+            }
+            hueco = (hueco + 1) & mascara;
+        }
+        // Se adelantan las entradas del mismo tramo que pueden ocupar el hueco sin quedar antes de su posición ideal
+        for (int j = (hueco + 1) & mascara; claves[j] != VACIO; j = (j + 1) & mascara) {
+            int ideal = hash(claves[j]) & mascara;
+            if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                hueco = j;
+            }
+        }
+        claves[hueco] = VACIO;
+        tamano--;
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        reservar(capacidad);
+        tamano = 0;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != VACIO) {
+                poner(clavesAnteriores[i], valoresAnteriores[i]);
+            }
+        }
+    }
+
+    private void reservar(int capacidad) {
+        claves = new long[capacidad];
+        Arrays.fill(claves, VACIO);
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+    }
+
+    private static int capacidadTabla(int elementos) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, elementos) * 2 - 1) << 1);
+    }
+
+    // Los IDs de secuencia son consecutivos: se mezclan los bits para repartirlos por la tabla
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
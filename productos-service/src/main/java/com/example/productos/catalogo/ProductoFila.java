@@ -0,0 +1,18 @@
+package com.example.productos.catalogo;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección con los campos que necesitan las estructuras en memoria del catálogo.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductoFila {
+    private final Long id;
+    private final String nombre;
+    private final String descripcion;
+    private final BigDecimal precio;
+    private final Integer stock;
+}
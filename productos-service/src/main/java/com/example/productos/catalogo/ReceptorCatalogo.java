@@ -0,0 +1,14 @@
+package com.example.productos.catalogo;
+
+
+/**
+ * Estructura en memoria que se llena con el recorrido del catálogo al arrancar.
+ * Todas comparten un único recorrido de la tabla; ver {@link CargaInicialCatalogo}.
+ */
+public interface ReceptorCatalogo {
+
+    void recibir(ProductoFila producto);
+
+    /** Se invoca cuando el recorrido ha terminado sin errores. */
+    void cargaCompleta();
+}
@@ -0,0 +1,43 @@
+package com.example.productos.controller;
+
+import com.example.productos.dto.ProductoBusquedaResponse;
+import com.example.productos.jsonapi.JsonApiCollectionResponse;
+import com.example.productos.jsonapi.JsonApiResponse;
+import com.example.productos.search.ProductoSearchIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Productos", description = "Operaciones sobre productos")
+@RestController
+@RequestMapping("/api/productos/search")
+public class ProductoBusquedaController {
+
+    private static final int LIMITE_MAXIMO = 50;
+
+    private final ProductoSearchIndex productoSearchIndex;
+
+    public ProductoBusquedaController(ProductoSearchIndex productoSearchIndex) {
+        this.productoSearchIndex = productoSearchIndex;
+    }
+
+    @Operation(summary = "Buscar productos", description = "Busca por prefijo de palabra en el nombre y la descripción, ordenado por relevancia")
+    @GetMapping
+    public ResponseEntity<JsonApiCollectionResponse<ProductoBusquedaResponse>> buscarProductos(
+            @RequestParam("q") String consulta,
+            @RequestParam(name = "limit", defaultValue = "10") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        var data = productoSearchIndex.buscar(consulta, limite).stream()
+                .map(p -> new JsonApiResponse.Data<>("productos", p.getId().toString(), p))
+                .toList();
+        var response = new JsonApiCollectionResponse<>(data);
+        if (!productoSearchIndex.isListo()) {
+            // Mientras se construye el índice los resultados pueden estar incompletos
+            response.meta("indiceCompleto", false);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
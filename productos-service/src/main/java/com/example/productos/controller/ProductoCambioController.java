@@ -0,0 +1,43 @@
+package com.example.productos.controller;
+
+import com.example.productos.dto.ProductoCambioResponse;
+import com.example.productos.jsonapi.JsonApiCollectionResponse;
+import com.example.productos.jsonapi.JsonApiResponse;
+import com.example.productos.pagination.PaginaCursor;
+import com.example.productos.service.ProductoCambioService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Productos", description = "Operaciones sobre productos")
+@RestController
+@RequestMapping("/api/productos/changes")
+public class ProductoCambioController {
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final ProductoCambioService productoCambioService;
+
+    public ProductoCambioController(ProductoCambioService productoCambioService) {
+        this.productoCambioService = productoCambioService;
+    }
+
+    @Operation(summary = "Cambios del catálogo", description = "Altas, modificaciones (UPSERT) y bajas (DELETE) posteriores "
+            + "al token indicado, en orden. meta.siguienteToken se usa como since en la siguiente llamada")
+    @GetMapping
+    public ResponseEntity<JsonApiCollectionResponse<ProductoCambioResponse>> listarCambios(
+            @RequestParam(name = "since", required = false) String since,
+            @RequestParam(name = "limit", defaultValue = "100") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        PaginaCursor<ProductoCambioResponse> pagina = productoCambioService.listarCambios(since, limite);
+        var data = pagina.getContenido().stream()
+                .map(c -> new JsonApiResponse.Data<>("productos-cambios", c.getToken(), c))
+                .toList();
+        return ResponseEntity.ok(new JsonApiCollectionResponse<>(data)
+                .meta("siguienteToken", pagina.getSiguienteCursor())
+                .link("next", "/api/productos/changes?since=" + pagina.getSiguienteCursor() + "&limit=" + limite));
+    }
+}
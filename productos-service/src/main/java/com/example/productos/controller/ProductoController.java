@@ -1,18 +1,35 @@
 package com.example.productos.controller;
 
 import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoFiltro;
+import com.example.productos.dto.ProductoParcial;
 import com.example.productos.dto.ProductoResponse;
+import com.example.productos.dto.ProductosPorIdsResponse;
+import com.example.productos.exception.PrecondicionFallidaException;
 import com.example.productos.service.ProductoService;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.example.productos.jsonapi.JsonApiCollectionResponse;
 import com.example.productos.jsonapi.JsonApiResponse;
+import com.example.productos.pagination.PaginaCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
 @Tag(name = "Productos", description = "Operaciones sobre productos")
 @RestController
 @RequestMapping("/api/productos")
@@ -32,21 +49,57 @@ public class ProductoController {
         return new ResponseEntity<>(jsonApi, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Obtener producto por ID", description = "Obtiene un producto por su identificador")
+    @Operation(summary = "Obtener producto por ID", description = "Obtiene un producto por su identificador. "
+            + "Devuelve ETag y responde 304 sin cuerpo si If-None-Match coincide con la versión actual")
     @GetMapping("/{id}")
-    public ResponseEntity<JsonApiResponse<ProductoResponse>> obtenerProductoPorId(@PathVariable Long id) {
+    public ResponseEntity<JsonApiResponse<ProductoResponse>> obtenerProductoPorId(@PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // Solo se compara la versión: no hace falta cargar ni serializar el producto
+            Long version = productoService.obtenerVersionProducto(id);
+            if (coincideAlguno(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version)).build();
+            }
+        }
         ProductoResponse response = productoService.obtenerProductoPorId(id);
         JsonApiResponse<ProductoResponse> jsonApi = new JsonApiResponse<>("productos", response.getId().toString(), response);
+        return conEtag(ResponseEntity.ok(), response).body(jsonApi);
+    }
+
+    @Operation(summary = "Obtener productos por IDs", description = "Obtiene varios productos en una sola consulta; los IDs inexistentes se informan en meta")
+    @GetMapping(params = "ids")
+    public ResponseEntity<JsonApiCollectionResponse<ProductoResponse>> obtenerProductosPorIds(@RequestParam List<Long> ids) {
+        ProductosPorIdsResponse resultado = productoService.obtenerProductosPorIds(ids);
+        var data = resultado.getProductos().stream()
+                .map(p -> new JsonApiResponse.Data<>("productos", p.getId().toString(), p))
+                .toList();
+        JsonApiCollectionResponse<ProductoResponse> jsonApi = new JsonApiCollectionResponse<>(data);
+        if (!resultado.getIdsNoEncontrados().isEmpty()) {
+            jsonApi.meta("idsNoEncontrados", resultado.getIdsNoEncontrados());
+        }
         return ResponseEntity.ok(jsonApi);
     }
 
-    @Operation(summary = "Actualizar producto por ID", description = "Actualizar un producto por su identificador")
+    @Operation(summary = "Actualizar producto por ID", description = "Actualizar un producto por su identificador. "
+            + "Con If-Match solo se aplica si el ETag sigue siendo el actual; si no, responde 412")
     @PutMapping("/{id}")
     public ResponseEntity<JsonApiResponse<ProductoResponse>> actualizarProducto(
-            @PathVariable Long id, @Valid @RequestBody ProductoDTO productoDTO) {
-        ProductoResponse response = productoService.actualizarProducto(id, productoDTO);
+            @PathVariable Long id, @Valid @RequestBody ProductoDTO productoDTO,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ProductoResponse response = productoService.actualizarProducto(id, productoDTO, versionEsperada(ifMatch));
         JsonApiResponse<ProductoResponse> jsonApi = new JsonApiResponse<>("productos", response.getId().toString(), response);
-        return ResponseEntity.ok(jsonApi);
+        return conEtag(ResponseEntity.ok(), response).body(jsonApi);
+    }
+
+    @Operation(summary = "Modificar campos de un producto", description = "Aplica un JSON Merge Patch: solo se escriben "
+            + "los campos presentes, en una única sentencia. Admite If-Match como la actualización completa")
+    @PatchMapping(path = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<JsonApiResponse<ProductoResponse>> parchearProducto(
+            @PathVariable Long id, @RequestBody JsonNode parche,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ProductoResponse response = productoService.parchearProducto(id, parche, versionEsperada(ifMatch));
+        JsonApiResponse<ProductoResponse> jsonApi = new JsonApiResponse<>("productos", response.getId().toString(), response);
+        return conEtag(ResponseEntity.ok(), response).body(jsonApi);
     }
 
     @Operation(summary = "Eliminar producto por ID", description = "Eliminar un producto por su identificador")
@@ -56,12 +109,113 @@ public class ProductoController {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Listar productos paginados", description = "Obtiene una lista paginada de productos")
+    @Operation(summary = "Listar productos paginados", description = "Obtiene una lista paginada de productos. "
+            + "Con page[after] (vacío para la primera página) usa paginación por cursor y devuelve links.next. "
+            + "Con fields[productos]=campo1,campo2 solo se consultan y devuelven esos campos. "
+            + "filter[precioMin], filter[precioMax], filter[stockMin] y filter[nombrePrefix] se combinan con AND")
     @GetMapping
-    public ResponseEntity<?> listarProductos(Pageable pageable) {
-        Page<ProductoResponse> productos = productoService.listarTodosLosProductos(pageable);
+    public ResponseEntity<?> listarProductos(Pageable pageable,
+            @RequestParam(name = "page[after]", required = false) String after,
+            @RequestParam(name = "fields[productos]", required = false) String fields,
+            @RequestParam(name = "filter[precioMin]", required = false) BigDecimal precioMin,
+            @RequestParam(name = "filter[precioMax]", required = false) BigDecimal precioMax,
+            @RequestParam(name = "filter[stockMin]", required = false) Integer stockMin,
+            @RequestParam(name = "filter[nombrePrefix]", required = false) String nombrePrefix) {
+        Set<String> campos = fields == null ? null : camposSolicitados(fields);
+        ProductoFiltro filtro = new ProductoFiltro(precioMin, precioMax, stockMin, nombrePrefix);
+        if (after != null) {
+            return campos == null
+                    ? respuestaCursor(productoService.listarProductosPorCursor(after, pageable, filtro), ProductoResponse::getId, pageable, null, filtro)
+                    : respuestaCursor(productoService.listarProductosPorCursor(after, pageable, campos, filtro), ProductoParcial::getId, pageable, campos, filtro);
+        }
+        if (campos != null) {
+            Page<ProductoParcial> productos = productoService.listarProductosConCampos(pageable, campos, filtro);
+            var data = productos.map(p -> new JsonApiResponse.Data<>("productos", p.getId().toString(), p)).toList();
+            return ResponseEntity.ok().body(java.util.Map.of("data", data));
+        }
+        Page<ProductoResponse> productos = productoService.listarTodosLosProductos(pageable, filtro);
         // Para JSON:API, deberías mapear cada producto a JsonApiResponse y devolver una lista de data
         var data = productos.map(p -> new JsonApiResponse.Data<>("productos", p.getId().toString(), p)).toList();
         return ResponseEntity.ok().body(java.util.Map.of("data", data));
     }
-}
\ No newline at end of file
+
+    private static Set<String> camposSolicitados(String fields) {
+        Set<String> campos = new LinkedHashSet<>();
+        for (String campo : fields.split(",")) {
+            if (!campo.isBlank()) {
+                campos.add(campo.trim());
+            }
+        }
+        return campos;
+    }
+
+    private static <T> ResponseEntity<JsonApiCollectionResponse<T>> respuestaCursor(PaginaCursor<T> pagina,
+            Function<T, Long> id, Pageable pageable, Set<String> campos, ProductoFiltro filtro) {
+        var data = pagina.getContenido().stream()
+                .map(p -> new JsonApiResponse.Data<>("productos", id.apply(p).toString(), p))
+                .toList();
+        JsonApiCollectionResponse<T> jsonApi = new JsonApiCollectionResponse<>(data);
+        if (pagina.getSiguienteCursor() != null) {
+            StringBuilder next = new StringBuilder("/api/productos?");
+            if (pageable.isPaged()) {
+                next.append("size=").append(pageable.getPageSize()).append('&');
+            }
+            if (campos != null) {
+                next.append("fields[productos]=").append(String.join(",", campos)).append('&');
+            }
+            // El cursor solo guarda la posición: los filtros tienen que repetirse en cada página
+            agregarFiltro(next, "precioMin", filtro.getPrecioMin());
+            agregarFiltro(next, "precioMax", filtro.getPrecioMax());
+            agregarFiltro(next, "stockMin", filtro.getStockMin());
+            agregarFiltro(next, "nombrePrefix", filtro.getNombrePrefix());
+            jsonApi.link("next", next.append("page[after]=").append(pagina.getSiguienteCursor()).toString());
+        }
+        return ResponseEntity.ok(jsonApi);
+    }
+
+    private static void agregarFiltro(StringBuilder url, String nombre, Object valor) {
+        if (valor != null) {
+            url.append("filter[").append(nombre).append("]=")
+                    .append(URLEncoder.encode(valor.toString(), StandardCharsets.UTF_8)).append('&');
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder conEtag(ResponseEntity.BodyBuilder builder, ProductoResponse producto) {
+        return producto.getVersion() == null ? builder : builder.eTag(etag(producto.getVersion()));
+    }
+
+    // ETag fuerte: la versión identifica de forma única la representación del producto
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /** Compara la lista de If-None-Match con la versión actual (comparación débil: admite W/). */
+    private static boolean coincideAlguno(String ifNoneMatch, Long version) {
+        for (String valor : ifNoneMatch.split(",")) {
+            String etag = valor.trim();
+            if (etag.startsWith("W/")) {
+                etag = etag.substring(2);
+            }
+            if (etag.equals("*") || etag.equals(etag(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Versión exigida por If-Match; {@code null} si no hay condición o es "*". */
+    private static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.contains(",") || !etag.startsWith("\"") || !etag.endsWith("\"") || etag.length() < 3) {
+            throw new PrecondicionFallidaException("If-Match debe contener un único ETag fuerte del producto");
+        }
+        try {
+            return Long.valueOf(etag.substring(1, etag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PrecondicionFallidaException("If-Match no corresponde a ninguna versión del producto");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.productos.controller;
+
+import com.example.productos.catalogo.CatalogoColumnar;
+import com.example.productos.dto.EstadisticasCatalogoResponse;
+import com.example.productos.dto.ProductoPrecioResponse;
+import com.example.productos.dto.RangoPreciosResponse;
+import com.example.productos.jsonapi.JsonApiCollectionResponse;
+import com.example.productos.jsonapi.JsonApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Tag(name = "Productos", description = "Operaciones sobre productos")
+@RestController
+@RequestMapping("/api/productos/stats")
+public class ProductoEstadisticasController {
+
+    private static final int MAXIMO_RESULTADOS = 1000;
+
+    private final CatalogoColumnar catalogoColumnar;
+
+    public ProductoEstadisticasController(CatalogoColumnar catalogoColumnar) {
+        this.catalogoColumnar = catalogoColumnar;
+    }
+
+    @Operation(summary = "Estadísticas del catálogo", description = "Número de productos, stock total, valor del inventario y precios mínimo, máximo y medio")
+    @GetMapping
+    public ResponseEntity<JsonApiResponse<EstadisticasCatalogoResponse>> obtenerEstadisticas() {
+        comprobarListo();
+        return ResponseEntity.ok(new JsonApiResponse<>("estadisticas-catalogo", "actual", catalogoColumnar.estadisticas()));
+    }
+
+    @Operation(summary = "Productos más caros", description = "Los n productos de mayor precio")
+    @GetMapping("/top-precios")
+    public ResponseEntity<JsonApiCollectionResponse<ProductoPrecioResponse>> obtenerMasCaros(
+            @RequestParam(name = "n", defaultValue = "10") int n) {
+        validarCantidad("n", n);
+        comprobarListo();
+        var data = catalogoColumnar.masCaros(n).stream()
+                .map(p -> new JsonApiResponse.Data<>("productos", p.getId().toString(), p))
+                .toList();
+        return ResponseEntity.ok(new JsonApiCollectionResponse<>(data));
+    }
+
+    @Operation(summary = "Histograma de precios", description = "Número de productos en cada uno de los rangos de precio de igual anchura")
+    @GetMapping("/histograma-precios")
+    public ResponseEntity<JsonApiCollectionResponse<RangoPreciosResponse>> obtenerHistogramaPrecios(
+            @RequestParam(name = "rangos", defaultValue = "10") int rangos) {
+        validarCantidad("rangos", rangos);
+        comprobarListo();
+        List<RangoPreciosResponse> histograma = catalogoColumnar.histogramaPrecios(rangos);
+        var data = IntStream.range(0, histograma.size())
+                .mapToObj(i -> new JsonApiResponse.Data<>("rangos-precio", String.valueOf(i), histograma.get(i)))
+                .toList();
+        return ResponseEntity.ok(new JsonApiCollectionResponse<>(data));
+    }
+
+    private void comprobarListo() {
+        if (!catalogoColumnar.isListo()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "El catálogo en memoria todavía se está cargando");
+        }
+    }
+
+    private static void validarCantidad(String parametro, int valor) {
+        if (valor < 1 || valor > MAXIMO_RESULTADOS) {
+            throw new IllegalArgumentException(parametro + " debe estar entre 1 y " + MAXIMO_RESULTADOS);
+        }
+    }
+}
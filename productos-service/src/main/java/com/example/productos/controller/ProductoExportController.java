@@ -0,0 +1,32 @@
+package com.example.productos.controller;
+
+import com.example.productos.service.ProductoExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Tag(name = "Productos", description = "Operaciones sobre productos")
+@RestController
+@RequestMapping("/api/productos/export")
+public class ProductoExportController {
+
+    private final ProductoExportService productoExportService;
+
+    public ProductoExportController(ProductoExportService productoExportService) {
+        this.productoExportService = productoExportService;
+    }
+
+    @Operation(summary = "Exportar catálogo", description = "Devuelve todos los productos como NDJSON (un objeto JSON por línea), en streaming")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarProductos() {
+        StreamingResponseBody cuerpo = productoExportService::exportarNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.productos.controller;
+
+import com.example.productos.dto.ImportacionResponse;
+import com.example.productos.importacion.FormatoImportacion;
+import com.example.productos.importacion.ImportacionProductos;
+import com.example.productos.jsonapi.JsonApiResponse;
+import com.example.productos.service.ProductoImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@Tag(name = "Productos", description = "Operaciones sobre productos")
+@RestController
+@RequestMapping("/api/productos/import")
+public class ProductoImportController {
+
+    private final ProductoImportService productoImportService;
+
+    public ProductoImportController(ProductoImportService productoImportService) {
+        this.productoImportService = productoImportService;
+    }
+
+    @Operation(summary = "Importar productos", description = "Importa un fichero CSV (con cabecera) o NDJSON en segundo plano; devuelve el id de la importación")
+    @PostMapping(consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<JsonApiResponse<ImportacionResponse>> importarProductos(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream contenido) throws IOException {
+        ImportacionProductos importacion = productoImportService.iniciarImportacion(contenido,
+                FormatoImportacion.desdeContentType(contentType));
+        JsonApiResponse<ImportacionResponse> jsonApi = new JsonApiResponse<>("importaciones", importacion.getId(), importacion.toResponse());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/productos/import/" + importacion.getId()))
+                .body(jsonApi);
+    }
+
+    @Operation(summary = "Consultar importación", description = "Progreso, rendimiento y errores de una importación")
+    @GetMapping("/{id}")
+    public ResponseEntity<JsonApiResponse<ImportacionResponse>> obtenerImportacion(@PathVariable String id) {
+        ImportacionResponse response = productoImportService.obtenerImportacion(id);
+        return ResponseEntity.ok(new JsonApiResponse<>("importaciones", id, response));
+    }
+}
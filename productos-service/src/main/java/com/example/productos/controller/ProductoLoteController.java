@@ -0,0 +1,52 @@
+package com.example.productos.controller;
+
+import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoLoteActualizacionDTO;
+import com.example.productos.dto.ProductoLoteResultado;
+import com.example.productos.jsonapi.JsonApiCollectionResponse;
+import com.example.productos.jsonapi.JsonApiResponse;
+import com.example.productos.service.ProductoLoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "Productos", description = "Operaciones sobre productos")
+@RestController
+@RequestMapping("/api/productos/batch")
+public class ProductoLoteController {
+
+    private final ProductoLoteService productoLoteService;
+
+    public ProductoLoteController(ProductoLoteService productoLoteService) {
+        this.productoLoteService = productoLoteService;
+    }
+
+    @Operation(summary = "Crear productos por lote", description = "Valida y crea una lista de productos en una sola transacción, con resultado por elemento")
+    @PostMapping
+    public ResponseEntity<JsonApiCollectionResponse<ProductoLoteResultado>> crearProductos(@RequestBody List<ProductoDTO> productos) {
+        return ResponseEntity.ok(toJsonApi(productoLoteService.crearProductos(productos)));
+    }
+
+    @Operation(summary = "Actualizar productos por lote", description = "Valida y actualiza una lista de productos en una sola transacción, con resultado por elemento")
+    @PutMapping
+    public ResponseEntity<JsonApiCollectionResponse<ProductoLoteResultado>> actualizarProductos(@RequestBody List<ProductoLoteActualizacionDTO> items) {
+        return ResponseEntity.ok(toJsonApi(productoLoteService.actualizarProductos(items)));
+    }
+
+    private JsonApiCollectionResponse<ProductoLoteResultado> toJsonApi(List<ProductoLoteResultado> resultados) {
+        var data = resultados.stream()
+                .map(r -> new JsonApiResponse.Data<>("productos-lote-resultados", String.valueOf(r.getIndice()), r))
+                .toList();
+        long fallidos = resultados.stream()
+                .filter(r -> r.getEstado() == ProductoLoteResultado.Estado.INVALIDO
+                        || r.getEstado() == ProductoLoteResultado.Estado.NO_ENCONTRADO)
+                .count();
+        return new JsonApiCollectionResponse<>(data)
+                .meta("total", resultados.size())
+                .meta("procesados", resultados.size() - fallidos)
+                .meta("fallidos", fallidos);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticasCatalogoResponse {
+    private long productos;
+    private long stockTotal;
+    // Suma de precio * stock
+    private BigDecimal valorInventario;
+    private BigDecimal precioMinimo;
+    private BigDecimal precioMaximo;
+    private BigDecimal precioMedio;
+}
@@ -0,0 +1,26 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacionResponse {
+    private String id;
+    private String estado;
+    private String formato;
+    private long registrosLeidos;
+    private long registrosValidos;
+    private long registrosInvalidos;
+    private long productosGuardados;
+    private long bloquesGuardados;
+    private long bloquesFallidos;
+    private double productosPorSegundo;
+    private Instant inicio;
+    private Instant fin;
+    private List<String> errores;
+}
@@ -0,0 +1,13 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoBusquedaResponse {
+    private Long id;
+    private String nombre;
+    private int puntuacion;
+}
@@ -0,0 +1,22 @@
+package com.example.productos.dto;
+
+import com.example.productos.model.ProductoCambio;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoCambioResponse {
+    private String token;
+    private ProductoCambio.Tipo tipo;
+    private Long productoId;
+    private Instant fecha;
+
+    // Estado actual del producto en los UPSERT
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ProductoResponse producto;
+}
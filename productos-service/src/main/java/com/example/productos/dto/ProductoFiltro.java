@@ -0,0 +1,24 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros del listado de productos ({@code filter[...]}); los nulos no filtran.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoFiltro {
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private Integer stockMin;
+    private String nombrePrefix;
+
+    public boolean isVacio() {
+        return precioMin == null && precioMax == null && stockMin == null
+                && (nombrePrefix == null || nombrePrefix.isEmpty());
+    }
+}
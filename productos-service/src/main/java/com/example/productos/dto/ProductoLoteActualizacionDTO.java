@@ -0,0 +1,23 @@
+package com.example.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Elemento de una actualización de productos por lote")
+public class ProductoLoteActualizacionDTO {
+
+    @NotNull(message = "El id no puede ser nulo")
+    @Schema(description = "Id del producto a actualizar", example = "1")
+    private Long id;
+
+    @Valid
+    @NotNull(message = "Los datos del producto no pueden ser nulos")
+    @Schema(description = "Nuevos datos del producto")
+    private ProductoDTO producto;
+}
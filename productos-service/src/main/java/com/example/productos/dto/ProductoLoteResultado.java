@@ -0,0 +1,19 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoLoteResultado {
+
+    public enum Estado { CREADO, ACTUALIZADO, INVALIDO, NO_ENCONTRADO }
+
+    private int indice;
+    private Estado estado;
+    private Long id;
+    private List<String> errores;
+}
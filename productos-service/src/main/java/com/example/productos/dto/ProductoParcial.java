@@ -0,0 +1,23 @@
+package com.example.productos.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.*;
+
+import java.util.Map;
+
+/**
+ * Producto con solo los campos pedidos en {@code fields[productos]}; se serializa como
+ * el mapa de esos campos.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ProductoParcial {
+    @JsonIgnore
+    private final Long id;
+
+    @JsonValue
+    private final Map<String, Object> atributos;
+}
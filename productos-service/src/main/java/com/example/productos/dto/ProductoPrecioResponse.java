@@ -0,0 +1,15 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoPrecioResponse {
+    private Long id;
+    private BigDecimal precio;
+    private int stock;
+}
@@ -1,5 +1,6 @@
 package com.example.productos.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -14,4 +15,8 @@ public class ProductoResponse {
     private String descripcion;
     private BigDecimal precio;
     private Integer stock;
+
+    // Viaja en la cabecera ETag, no en el cuerpo
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
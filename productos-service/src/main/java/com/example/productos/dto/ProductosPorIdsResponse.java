@@ -0,0 +1,14 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductosPorIdsResponse {
+    private List<ProductoResponse> productos;
+    private List<Long> idsNoEncontrados;
+}
@@ -0,0 +1,17 @@
+package com.example.productos.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RangoPreciosResponse {
+    // Incluido
+    private BigDecimal desde;
+    // Excluido, salvo en el último rango
+    private BigDecimal hasta;
+    private long productos;
+}
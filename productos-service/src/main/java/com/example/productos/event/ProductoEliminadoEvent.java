@@ -0,0 +1,10 @@
+package com.example.productos.event;
+
+import lombok.*;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductoEliminadoEvent {
+    private final Long productoId;
+}
@@ -0,0 +1,9 @@
+package com.example.productos.event;
+
+import com.example.productos.dto.ProductoResponse;
+
+public interface ProductoEventPublisher {
+    void publishProductoGuardadoEvent(ProductoResponse producto);
+
+    void publishProductoEliminadoEvent(Long productoId);
+}
@@ -0,0 +1,14 @@
+package com.example.productos.event;
+
+import com.example.productos.dto.ProductoResponse;
+import lombok.*;
+
+/**
+ * Un producto se creó o se modificó; lleva su estado completo tras el cambio.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductoGuardadoEvent {
+    private final ProductoResponse producto;
+}
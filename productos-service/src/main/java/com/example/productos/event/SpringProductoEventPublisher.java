@@ -0,0 +1,28 @@
+package com.example.productos.event;
+
+import com.example.productos.dto.ProductoResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica los cambios de productos como eventos de Spring. Los consumidores eligen
+ * la fase con {@code @EventListener} (dentro de la transacción) o
+ * {@code @TransactionalEventListener} (tras el commit).
+ */
+@Component
+@RequiredArgsConstructor
+public class SpringProductoEventPublisher implements ProductoEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publishProductoGuardadoEvent(ProductoResponse producto) {
+        applicationEventPublisher.publishEvent(new ProductoGuardadoEvent(producto));
+    }
+
+    @Override
+    public void publishProductoEliminadoEvent(Long productoId) {
+        applicationEventPublisher.publishEvent(new ProductoEliminadoEvent(productoId));
+    }
+}
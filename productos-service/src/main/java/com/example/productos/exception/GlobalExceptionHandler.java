@@ -1,10 +1,12 @@
 package com.example.productos.exception;
 
 import com.example.productos.jsonapi.JsonApiError;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -19,6 +21,46 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
     
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<JsonApiError> handleIllegalArgument(IllegalArgumentException ex) {
+        JsonApiError error = new JsonApiError(
+            "Solicitud inválida",
+            ex.getMessage(),
+            String.valueOf(HttpStatus.BAD_REQUEST.value())
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
+    @ExceptionHandler(PrecondicionFallidaException.class)
+    public ResponseEntity<JsonApiError> handlePrecondicionFallida(PrecondicionFallidaException ex) {
+        JsonApiError error = new JsonApiError(
+            "Precondición fallida",
+            ex.getMessage(),
+            String.valueOf(HttpStatus.PRECONDITION_FAILED.value())
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+    
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<JsonApiError> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        JsonApiError error = new JsonApiError(
+            "Conflicto de concurrencia",
+            "El recurso fue modificado por otra petición; vuelva a leerlo y reintente.",
+            String.valueOf(HttpStatus.CONFLICT.value())
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<JsonApiError> handleResponseStatus(ResponseStatusException ex) {
+        JsonApiError error = new JsonApiError(
+            ex.getStatusCode().toString(),
+            ex.getReason(),
+            String.valueOf(ex.getStatusCode().value())
+        );
+        return ResponseEntity.status(ex.getStatusCode()).body(error);
+    }
+    
    @ExceptionHandler(Exception.class)
     public ResponseEntity<JsonApiError> handleGeneralException(Exception ex) {
         JsonApiError error = new JsonApiError(
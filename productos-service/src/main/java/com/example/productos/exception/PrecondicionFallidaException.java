@@ -0,0 +1,7 @@
+package com.example.productos.exception;
+
+public class PrecondicionFallidaException extends RuntimeException {
+    public PrecondicionFallidaException(String message) {
+        super(message);
+    }
+}
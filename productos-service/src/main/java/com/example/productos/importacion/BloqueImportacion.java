@@ -0,0 +1,21 @@
+package com.example.productos.importacion;
+
+import com.example.productos.dto.ProductoDTO;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Conjunto de productos válidos que se guarda en una misma transacción.
+ */
+@Getter
+@AllArgsConstructor
+public class BloqueImportacion {
+
+    /** Marca de fin de fichero que el lector deja en la cola para el escritor. */
+    public static final BloqueImportacion FIN = new BloqueImportacion(0, 0, List.of());
+
+    private final long primeraLinea;
+    private final long ultimaLinea;
+    private final List<ProductoDTO> productos;
+}
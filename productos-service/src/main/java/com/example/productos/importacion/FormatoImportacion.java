@@ -0,0 +1,21 @@
+package com.example.productos.importacion;
+
+import org.springframework.http.MediaType;
+
+public enum FormatoImportacion {
+    CSV,
+    NDJSON;
+
+    public static FormatoImportacion desdeContentType(String contentType) {
+        if (contentType != null) {
+            MediaType tipo = MediaType.parseMediaType(contentType);
+            if (tipo.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+                return CSV;
+            }
+            if (tipo.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+                return NDJSON;
+            }
+        }
+        throw new IllegalArgumentException("Formato no soportado: use text/csv o application/x-ndjson");
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.productos.importacion;
+
+import com.example.productos.dto.ImportacionResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado y progreso de una importación en curso. Lo actualizan el hilo lector
+ * y el hilo escritor a la vez, y se consulta desde las peticiones de estado.
+ */
+public class ImportacionProductos {
+
+    public enum Estado { EN_CURSO, COMPLETADA, FALLIDA }
+
+    private static final int MAXIMO_ERRORES = 100;
+
+    private final String id;
+    private final FormatoImportacion formato;
+    private final Instant inicio = Instant.now();
+    private volatile Instant fin;
+    private volatile Estado estado = Estado.EN_CURSO;
+    private volatile boolean lecturaInterrumpida;
+
+    private final AtomicLong registrosLeidos = new AtomicLong();
+    private final AtomicLong registrosValidos = new AtomicLong();
+    private final AtomicLong registrosInvalidos = new AtomicLong();
+    private final AtomicLong productosGuardados = new AtomicLong();
+    private final AtomicLong bloquesGuardados = new AtomicLong();
+    private final AtomicLong bloquesFallidos = new AtomicLong();
+
+    private final ConcurrentLinkedQueue<String> errores = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger erroresRegistrados = new AtomicInteger();
+
+    public ImportacionProductos(String id, FormatoImportacion formato) {
+        this.id = id;
+        this.formato = formato;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isTerminada() {
+        return estado != Estado.EN_CURSO;
+    }
+
+    public void registroValido() {
+        registrosLeidos.incrementAndGet();
+        registrosValidos.incrementAndGet();
+    }
+
+    public void registroInvalido(long linea, String error) {
+        registrosLeidos.incrementAndGet();
+        registrosInvalidos.incrementAndGet();
+        registrarError("Línea " + linea + ": " + error);
+    }
+
+    public void bloqueGuardado(long productos) {
+        bloquesGuardados.incrementAndGet();
+        productosGuardados.addAndGet(productos);
+    }
+
+    public void bloqueFallido(long primeraLinea, long ultimaLinea, String error) {
+        bloquesFallidos.incrementAndGet();
+        registrarError("Líneas " + primeraLinea + "-" + ultimaLinea + " no guardadas: " + error);
+    }
+
+    public void lecturaInterrumpida(String error) {
+        lecturaInterrumpida = true;
+        registrarError("Lectura interrumpida: " + error);
+    }
+
+    public boolean isLecturaInterrumpida() {
+        return lecturaInterrumpida;
+    }
+
+    public void registrarError(String error) {
+        // Se guardan solo los primeros errores para acotar la memoria en ficheros muy sucios
+        if (erroresRegistrados.getAndIncrement() < MAXIMO_ERRORES) {
+            errores.add(error);
+        }
+    }
+
+    public void terminar(Estado estadoFinal) {
+        this.fin = Instant.now();
+        this.estado = estadoFinal;
+    }
+
+    public ImportacionResponse toResponse() {
+        Instant hasta = fin != null ? fin : Instant.now();
+        double segundos = Math.max(Duration.between(inicio, hasta).toMillis(), 1) / 1000.0;
+        List<String> listaErrores = new ArrayList<>(errores);
+        int omitidos = erroresRegistrados.get() - listaErrores.size();
+        if (omitidos > 0) {
+            listaErrores.add("... y " + omitidos + " errores más");
+        }
+        return ImportacionResponse.builder()
+                .id(id)
+                .estado(estado.name())
+                .formato(formato.name())
+                .registrosLeidos(registrosLeidos.get())
+                .registrosValidos(registrosValidos.get())
+                .registrosInvalidos(registrosInvalidos.get())
+                .productosGuardados(productosGuardados.get())
+                .bloquesGuardados(bloquesGuardados.get())
+                .bloquesFallidos(bloquesFallidos.get())
+                .productosPorSegundo(productosGuardados.get() / segundos)
+                .inicio(inicio)
+                .fin(fin)
+                .errores(listaErrores)
+                .build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.productos.importacion;
+
+import com.example.productos.dto.ProductoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lee productos de un fichero CSV (con cabecera) o NDJSON registro a registro,
+ * sin cargar el fichero en memoria. Un registro mal formado no detiene la lectura.
+ */
+public class LectorProductos {
+
+    private static final List<String> COLUMNAS = List.of("nombre", "descripcion", "precio", "stock");
+
+    private final BufferedReader reader;
+    private final FormatoImportacion formato;
+    private final ObjectReader jsonReader;
+    private Map<String, Integer> indiceColumnas;
+    private long linea;
+
+    public LectorProductos(BufferedReader reader, FormatoImportacion formato, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.formato = formato;
+        this.jsonReader = objectMapper.readerFor(ProductoDTO.class);
+    }
+
+    /**
+     * Devuelve el siguiente registro o {@code null} al llegar al final del fichero.
+     */
+    public RegistroImportado siguiente() throws IOException {
+        return formato == FormatoImportacion.CSV ? siguienteCsv() : siguienteNdjson();
+    }
+
+    private RegistroImportado siguienteNdjson() throws IOException {
+        String texto;
+        do {
+            texto = reader.readLine();
+            if (texto == null) {
+                return null;
+            }
+            linea++;
+        } while (texto.isBlank());
+        try {
+            return new RegistroImportado(linea, jsonReader.readValue(texto), null);
+        } catch (JsonProcessingException ex) {
+            return new RegistroImportado(linea, null, "JSON inválido: " + ex.getOriginalMessage());
+        }
+    }
+
+    private RegistroImportado siguienteCsv() throws IOException {
+        if (indiceColumnas == null) {
+            leerCabecera();
+        }
+        List<String> campos;
+        do {
+            campos = leerFilaCsv();
+            if (campos == null) {
+                return null;
+            }
+        } while (campos.size() == 1 && campos.get(0).isBlank());
+        long lineaRegistro = linea;
+        try {
+            ProductoDTO producto = new ProductoDTO(
+                    campo(campos, "nombre"),
+                    campo(campos, "descripcion"),
+                    decimal(campo(campos, "precio")),
+                    entero(campo(campos, "stock")));
+            return new RegistroImportado(lineaRegistro, producto, null);
+        } catch (NumberFormatException ex) {
+            return new RegistroImportado(lineaRegistro, null, "Valor numérico inválido: " + ex.getMessage());
+        }
+    }
+
+    private void leerCabecera() throws IOException {
+        List<String> cabecera = leerFilaCsv();
+        if (cabecera == null) {
+            throw new IllegalArgumentException("El fichero CSV está vacío");
+        }
+        indiceColumnas = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            indiceColumnas.put(cabecera.get(i).trim().toLowerCase(), i);
+        }
+        if (!indiceColumnas.containsKey("nombre") || !indiceColumnas.containsKey("precio")) {
+            throw new IllegalArgumentException("La cabecera CSV debe incluir al menos las columnas nombre y precio; columnas reconocidas: " + COLUMNAS);
+        }
+    }
+
+    /**
+     * Lee una fila CSV (RFC 4180): campos entre comillas con comillas dobladas y saltos de línea dentro.
+     */
+    private List<String> leerFilaCsv() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        linea++;
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        while (c != -1) {
+            if (entreComillas) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int siguiente = reader.read();
+                    if (siguiente == '"') {
+                        actual.append('"');
+                    } else {
+                        entreComillas = false;
+                        if (siguiente != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    actual.append((char) c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                actual.append((char) c);
+            }
+            c = reader.read();
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private String campo(List<String> campos, String nombre) {
+        Integer indice = indiceColumnas.get(nombre);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice);
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static BigDecimal decimal(String valor) {
+        return valor == null ? null : new BigDecimal(valor.trim());
+    }
+
+    private static Integer entero(String valor) {
+        return valor == null ? null : Integer.valueOf(valor.trim());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.productos.importacion;
+
+import com.example.productos.dto.ProductoDTO;
+import lombok.*;
+
+/**
+ * Un registro leído del fichero: el producto si se pudo interpretar, o el error de formato.
+ */
+@Getter
+@AllArgsConstructor
+public class RegistroImportado {
+    private final long linea;
+    private final ProductoDTO producto;
+    private final String error;
+}
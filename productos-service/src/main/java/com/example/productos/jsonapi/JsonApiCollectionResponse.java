@@ -0,0 +1,35 @@
+package com.example.productos.jsonapi;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JsonApiCollectionResponse<T> {
+    private List<JsonApiResponse.Data<T>> data;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, String> links = new LinkedHashMap<>();
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, Object> meta = new LinkedHashMap<>();
+
+    public JsonApiCollectionResponse(List<JsonApiResponse.Data<T>> data) {
+        this.data = data;
+    }
+
+    public JsonApiCollectionResponse<T> link(String nombre, String href) {
+        this.links.put(nombre, href);
+        return this;
+    }
+
+    public JsonApiCollectionResponse<T> meta(String clave, Object valor) {
+        this.meta.put(clave, valor);
+        return this;
+    }
+
+    public List<JsonApiResponse.Data<T>> getData() { return data; }
+    public Map<String, String> getLinks() { return links; }
+    public Map<String, Object> getMeta() { return meta; }
+}
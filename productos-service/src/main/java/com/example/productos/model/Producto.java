@@ -3,19 +3,27 @@ package com.example.productos.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    // Soportan la paginación por cursor sobre (campo, id) y los filtros filter[...] del listado
+    @Index(name = "ix_productos_nombre_id", columnList = "nombre, id"),
+    @Index(name = "ix_productos_precio_id", columnList = "precio, id"),
+    @Index(name = "ix_productos_stock_id", columnList = "stock, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Producto {
     
+    // Secuencia con asignación por bloques (pooled): a diferencia de IDENTITY permite a Hibernate agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productos_seq")
+    @SequenceGenerator(name = "productos_seq", sequenceName = "productos_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "El nombre no puede estar vacío")
@@ -31,4 +39,10 @@ public class Producto {
     
     @Min(value = 0, message = "El stock no puede ser negativo")
     private Integer stock;
+
+    // Control de concurrencia optimista; las filas existentes arrancan en 0 al añadir la columna
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.productos.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Registro de solo inserción con cada alta, modificación o baja de un producto, escrito en la
+ * misma transacción que el cambio. {@code posicion} es un rowversion de SQL Server: la base de
+ * datos lo asigna en cada escritura, creciente en toda la base de datos, y es lo que ordena el feed.
+ */
+@Entity
+@Table(name = "productos_cambios", indexes = {
+    @Index(name = "ix_productos_cambios_posicion", columnList = "posicion")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoCambio {
+
+    public enum Tipo { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productos_cambios_seq")
+    @SequenceGenerator(name = "productos_cambios_seq", sequenceName = "productos_cambios_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Tipo tipo;
+
+    @Column(nullable = false)
+    private Instant fecha;
+
+    @Column(columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] posicion;
+}
@@ -0,0 +1,13 @@
+package com.example.productos.pagination;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursor<T> {
+    private List<T> contenido;
+    private String siguienteCursor;
+}
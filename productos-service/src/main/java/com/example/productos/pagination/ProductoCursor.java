@@ -0,0 +1,67 @@
+package com.example.productos.pagination;
+
+import lombok.*;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Posición dentro de un listado paginado por cursor (keyset).
+ * Guarda el campo de orden, su dirección y los valores (campo, id) de la última
+ * fila entregada; se serializa como una cadena opaca en base64url.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ProductoCursor {
+
+    // Solo campos no nulos: la búsqueda por (campo, id) no admite NULL
+    public static final Set<String> CAMPOS_ORDENABLES = Set.of("id", "nombre", "precio");
+
+    private final String campo;
+    private final Sort.Direction direccion;
+    private final Long ultimoId;
+    private final Object ultimoValor;
+
+    public String codificar() {
+        String valor = "id".equals(campo) ? "" : String.valueOf(ultimoValor);
+        String plano = campo + "|" + direccion.name() + "|" + ultimoId + "|" + valor;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductoCursor decodificar(String cursor) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // El valor va al final porque el nombre puede contener el separador
+            String[] partes = plano.split("\\|", 4);
+            String campo = partes[0];
+            validarCampo(campo);
+            Long ultimoId = Long.valueOf(partes[2]);
+            Object valor = switch (campo) {
+                case "nombre" -> partes[3];
+                case "precio" -> new BigDecimal(partes[3]);
+                default -> ultimoId;
+            };
+            return new ProductoCursor(campo, Sort.Direction.valueOf(partes[1]), ultimoId, valor);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    public static void validarCampo(String campo) {
+        if (!CAMPOS_ORDENABLES.contains(campo)) {
+            throw new IllegalArgumentException("No se puede paginar por cursor ordenando por '" + campo
+                    + "'; campos permitidos: " + CAMPOS_ORDENABLES);
+        }
+    }
+
+    public Sort orden() {
+        return "id".equals(campo)
+                ? Sort.by(direccion, "id")
+                : Sort.by(direccion, campo).and(Sort.by(direccion, "id"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.productos.repository;
+
+import com.example.productos.model.ProductoCambio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductoCambioRepository extends JpaRepository<ProductoCambio, Long> {
+
+    interface CambioFila {
+        Long getPosicion();
+
+        Long getProductoId();
+
+        String getTipo();
+
+        Instant getFecha();
+    }
+
+    /**
+     * Cambios posteriores a {@code desde} en orden de posición. Solo devuelve posiciones por debajo
+     * de MIN_ACTIVE_ROWVERSION(): las transacciones aún abiertas pueden confirmar posiciones menores
+     * que las ya visibles, y así ningún lector las salta.
+     */
+    @Query(value = "SELECT TOP (:limite) CAST(c.posicion AS BIGINT) AS posicion, c.producto_id AS productoId, "
+            + "c.tipo AS tipo, c.fecha AS fecha "
+            + "FROM productos_cambios c "
+            + "WHERE c.posicion > CAST(CAST(:desde AS BIGINT) AS BINARY(8)) AND c.posicion < MIN_ACTIVE_ROWVERSION() "
+            + "ORDER BY c.posicion", nativeQuery = true)
+    List<CambioFila> buscarDesde(long desde, int limite);
+}
@@ -1,12 +1,49 @@
 package com.example.productos.repository;
 
 import com.example.productos.model.Producto;
+import com.example.productos.catalogo.ProductoFila;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto>,
+        ProductoRepositoryCustom {
     Page<Producto> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    List<Producto> findByIdIn(Collection<Long> ids);
+
+    @Query("select p.version from Producto p where p.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /** Borra con una sola sentencia, sin cargar la entidad; devuelve las filas afectadas. */
+    @Modifying
+    @Query("delete from Producto p where p.id = :id")
+    int eliminarPorId(Long id);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.productos.catalogo.ProductoFila(p.id, p.nombre, p.descripcion, p.precio, p.stock) from Producto p")
+    Stream<ProductoFila> streamCatalogo();
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.id from Producto p")
+    Stream<Long> streamIds();
+}
@@ -0,0 +1,30 @@
+package com.example.productos.repository;
+
+import com.example.productos.model.Producto;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Actualiza solo las columnas indicadas en {@code cambios} (campo de {@link Producto} → valor)
+     * con una única sentencia que también incrementa la versión y devuelve la fila resultante.
+     * Con {@code versionEsperada} la fila solo se modifica si sigue en esa versión.
+     *
+     * @return la fila actualizada, o vacío si no existe o su versión no coincide
+     */
+    Optional<Producto> actualizarCampos(Long id, Map<String, Object> cambios, Long versionEsperada);
+
+    /**
+     * Consulta solo las columnas de {@code campos}: el resto ni se lee ni se materializa.
+     * Cada fila es un mapa campo → valor en el orden de {@code campos}.
+     *
+     * @param limite máximo de filas, o negativo para no limitar
+     */
+    List<Map<String, Object>> buscarCampos(List<String> campos, Specification<Producto> filtro, Sort orden,
+                                           long desplazamiento, int limite);
+}
@@ -0,0 +1,107 @@
+package com.example.productos.repository;
+
+import com.example.productos.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+@RequiredArgsConstructor
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    // Campos modificables y su columna; el nombre de columna nunca sale de la petición
+    private static final Map<String, String> COLUMNAS = Map.of(
+            "nombre", "nombre",
+            "descripcion", "descripcion",
+            "precio", "precio",
+            "stock", "stock");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Producto> actualizarCampos(Long id, Map<String, Object> cambios, Long versionEsperada) {
+        StringJoiner set = new StringJoiner(", ", "SET ", ", version = version + 1");
+        MapSqlParameterSource parametros = new MapSqlParameterSource("id", id);
+        cambios.forEach((campo, valor) -> {
+            String columna = COLUMNAS.get(campo);
+            if (columna == null) {
+                throw new IllegalArgumentException("Campo no modificable: " + campo);
+            }
+            set.add(columna + " = :" + campo);
+            parametros.addValue(campo, valor);
+        });
+        String where = "WHERE id = :id";
+        if (versionEsperada != null) {
+            where += " AND version = :version";
+            parametros.addValue("version", versionEsperada);
+        }
+        // OUTPUT devuelve la fila ya actualizada en el mismo viaje que el UPDATE
+        String sql = "UPDATE productos " + set
+                + " OUTPUT inserted.id, inserted.nombre, inserted.descripcion, inserted.precio, inserted.stock, inserted.version "
+                + where;
+        return jdbcTemplate.query(sql, parametros, (rs, fila) -> Producto.builder()
+                        .id(rs.getLong("id"))
+                        .nombre(rs.getString("nombre"))
+                        .descripcion(rs.getString("descripcion"))
+                        .precio(rs.getBigDecimal("precio"))
+                        .stock(rs.getObject("stock", Integer.class))
+                        .version(rs.getLong("version"))
+                        .build())
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Map<String, Object>> buscarCampos(List<String> campos, Specification<Producto> filtro, Sort orden,
+                                                  long desplazamiento, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Producto> producto = consulta.from(Producto.class);
+        List<Selection<?>> seleccion = new ArrayList<>(campos.size());
+        for (String campo : campos) {
+            if (!campo.equals("id") && !COLUMNAS.containsKey(campo)) {
+                throw new IllegalArgumentException("Campo no seleccionable: " + campo);
+            }
+            seleccion.add(producto.get(campo).alias(campo));
+        }
+        consulta.multiselect(seleccion);
+        Predicate condicion = filtro == null ? null : filtro.toPredicate(producto, consulta, cb);
+        if (condicion != null) {
+            consulta.where(condicion);
+        }
+        consulta.orderBy(QueryUtils.toOrders(orden, producto, cb));
+
+        TypedQuery<Tuple> query = entityManager.createQuery(consulta).setFirstResult(Math.toIntExact(desplazamiento));
+        if (limite >= 0) {
+            query.setMaxResults(limite);
+        }
+        List<Tuple> tuplas = query.getResultList();
+        List<Map<String, Object>> filas = new ArrayList<>(tuplas.size());
+        for (Tuple tupla : tuplas) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            for (String campo : campos) {
+                fila.put(campo, tupla.get(campo));
+            }
+            filas.add(fila);
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.productos.repository;
+
+import com.example.productos.dto.ProductoFiltro;
+import com.example.productos.model.Producto;
+import com.example.productos.pagination.ProductoCursor;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ProductoSpecifications {
+
+    private static final char ESCAPE_LIKE = '\\';
+
+    private ProductoSpecifications() {
+    }
+
+    /**
+     * Filas posteriores al cursor según el orden (campo, id): se traduce en un
+     * predicado de búsqueda sobre el índice en lugar de un OFFSET. La cota redundante
+     * {@code campo >= valor} (o {@code <=} en descendente) da al optimizador un límite
+     * de rango sobre el índice que el OR por sí solo no le deja ver.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Producto> despuesDe(ProductoCursor cursor) {
+        return (root, query, cb) -> {
+            boolean asc = cursor.getDireccion() == Sort.Direction.ASC;
+            if ("id".equals(cursor.getCampo())) {
+                return asc ? cb.greaterThan(root.get("id"), cursor.getUltimoId())
+                        : cb.lessThan(root.get("id"), cursor.getUltimoId());
+            }
+            Comparable valor = (Comparable) cursor.getUltimoValor();
+            var campo = root.<Comparable>get(cursor.getCampo());
+            var id = root.<Long>get("id");
+            return cb.and(
+                    asc ? cb.greaterThanOrEqualTo(campo, valor) : cb.lessThanOrEqualTo(campo, valor),
+                    cb.or(
+                            asc ? cb.greaterThan(campo, valor) : cb.lessThan(campo, valor),
+                            cb.and(cb.equal(campo, valor),
+                                    asc ? cb.greaterThan(id, cursor.getUltimoId()) : cb.lessThan(id, cursor.getUltimoId()))));
+        };
+    }
+
+    /**
+     * Condiciones de {@code filtro} unidas con AND. Todas comparan la columna tal cual, sin
+     * funciones, para que el optimizador pueda buscar en el índice de precio, stock o nombre;
+     * el prefijo de nombre es un LIKE 'prefijo%' (la intercalación de SQL Server ya ignora
+     * mayúsculas).
+     */
+    public static Specification<Producto> conFiltro(ProductoFiltro filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> condiciones = new ArrayList<>();
+            if (filtro.getPrecioMin() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("precio"), filtro.getPrecioMin()));
+            }
+            if (filtro.getPrecioMax() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(root.get("precio"), filtro.getPrecioMax()));
+            }
+            if (filtro.getStockMin() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("stock"), filtro.getStockMin()));
+            }
+            if (filtro.getNombrePrefix() != null && !filtro.getNombrePrefix().isEmpty()) {
+                condiciones.add(cb.like(root.get("nombre"), escaparLike(filtro.getNombrePrefix()) + "%", ESCAPE_LIKE));
+            }
+            return condiciones.isEmpty() ? null : cb.and(condiciones.toArray(Predicate[]::new));
+        };
+    }
+
+    /** Escapa los comodines de LIKE para que el prefijo se compare literalmente. */
+    static String escaparLike(String texto) {
+        StringBuilder escapado = new StringBuilder(texto.length() + 8);
+        for (char c : texto.toCharArray()) {
+            if (c == '%' || c == '_' || c == '[' || c == ESCAPE_LIKE) {
+                escapado.append(ESCAPE_LIKE);
+            }
+            escapado.append(c);
+        }
+        return escapado.toString();
+    }
+}
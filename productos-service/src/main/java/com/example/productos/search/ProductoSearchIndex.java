@@ -0,0 +1,347 @@
+package com.example.productos.search;
+
+import com.example.productos.catalogo.ProductoFila;
+import com.example.productos.catalogo.ReceptorCatalogo;
+import com.example.productos.dto.ProductoBusquedaResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre el nombre y la descripción de los productos para
+ * la búsqueda por prefijo de palabra. Cada término de la consulta debe coincidir con el
+ * comienzo de alguna palabra del producto; los resultados se ordenan por puntuación
+ * (coincidencias en el nombre y palabras completas pesan más). Los términos de menos de
+ * {@value #MINIMO_PREFIJO} caracteres solo coinciden con palabras completas: como prefijo
+ * abarcarían casi todo el índice.
+ *
+ * <p>Cada versión indexada de un producto es un documento con número correlativo, así que
+ * las listas de documentos por término quedan ordenadas sin esfuerzo. Modificar o borrar un
+ * producto marca su documento como eliminado; cuando los eliminados superan a los vivos se
+ * compactan las listas.</p>
+ */
+@Component
+public class ProductoSearchIndex implements ReceptorCatalogo {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    private static final int NOMBRE_EXACTO = 4;
+    private static final int NOMBRE_PREFIJO = 3;
+    private static final int DESCRIPCION_EXACTO = 2;
+    private static final int DESCRIPCION_PREFIJO = 1;
+
+    static final int MINIMO_PREFIJO = 3;
+    private static final int MINIMO_ELIMINADOS_PARA_COMPACTAR = 10_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, ListaDocs> terminosNombre = new TreeMap<>();
+    private final TreeMap<String, ListaDocs> terminosDescripcion = new TreeMap<>();
+    private final Map<Long, Integer> docPorProducto = new HashMap<>();
+    private final BitSet eliminados = new BitSet();
+    private long[] productoPorDoc = new long[1024];
+    private String[] nombrePorDoc = new String[1024];
+    private int totalDocs;
+    private int totalEliminados;
+    // Borrados durante la carga inicial; solo se consultan hasta cargaCompleta
+    private Set<Long> eliminadosEnCarga = new HashSet<>();
+    private volatile boolean listo;
+
+    @Override
+    public void recibir(ProductoFila producto) {
+        // Lo indexado por eventos mientras se carga el catálogo es más reciente: no se pisa
+        indexar(producto.getId(), producto.getNombre(), producto.getDescripcion(), false);
+    }
+
+    @Override
+    public void cargaCompleta() {
+        lock.writeLock().lock();
+        try {
+            eliminadosEnCarga = Set.of();
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarProducto(ProductoGuardadoEvent event) {
+        indexar(event.getProducto().getId(), event.getProducto().getNombre(), event.getProducto().getDescripcion());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alEliminarProducto(ProductoEliminadoEvent event) {
+        eliminar(event.getProductoId());
+    }
+
+    public void indexar(Long id, String nombre, String descripcion) {
+        indexar(id, nombre, descripcion, true);
+    }
+
+    public void eliminar(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (!listo) {
+                eliminadosEnCarga.add(id);
+            }
+            Integer doc = docPorProducto.remove(id);
+            if (doc != null) {
+                marcarEliminado(doc);
+                compactarSiHaceFalta();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductoBusquedaResponse> buscar(String consulta, int limite) {
+        List<String> terminos = new ArrayList<>(tokenizar(consulta));
+        if (terminos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Se empieza por el término más selectivo para reducir pronto los candidatos
+            terminos.sort(Comparator.comparingLong(this::estimarCoincidencias));
+            Map<Integer, Integer> candidatos = null;
+            for (String termino : terminos) {
+                candidatos = puntuarTermino(termino, candidatos);
+                if (candidatos.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return mejores(candidatos, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return docPorProducto.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    private void indexar(Long id, String nombre, String descripcion, boolean reemplazar) {
+        lock.writeLock().lock();
+        try {
+            if (!listo && !eliminadosEnCarga.isEmpty()) {
+                if (!reemplazar && eliminadosEnCarga.contains(id)) {
+                    return;
+                }
+                if (reemplazar) {
+                    eliminadosEnCarga.remove(id);
+                }
+            }
+            Integer anterior = docPorProducto.get(id);
+            if (anterior != null) {
+                if (!reemplazar) {
+                    return;
+                }
+                marcarEliminado(anterior);
+            }
+            int doc = totalDocs++;
+            if (doc == productoPorDoc.length) {
+                productoPorDoc = Arrays.copyOf(productoPorDoc, doc * 2);
+                nombrePorDoc = Arrays.copyOf(nombrePorDoc, doc * 2);
+            }
+            productoPorDoc[doc] = id;
+            nombrePorDoc[doc] = nombre;
+            docPorProducto.put(id, doc);
+            for (String termino : tokenizar(nombre)) {
+                terminosNombre.computeIfAbsent(termino, t -> new ListaDocs()).agregar(doc);
+            }
+            for (String termino : tokenizar(descripcion)) {
+                terminosDescripcion.computeIfAbsent(termino, t -> new ListaDocs()).agregar(doc);
+            }
+            compactarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void marcarEliminado(int doc) {
+        eliminados.set(doc);
+        nombrePorDoc[doc] = null;
+        totalEliminados++;
+    }
+
+    private long estimarCoincidencias(String termino) {
+        long total = 0;
+        for (ListaDocs lista : coincidencias(terminosNombre, termino).values()) {
+            total += lista.tamano;
+        }
+        for (ListaDocs lista : coincidencias(terminosDescripcion, termino).values()) {
+            total += lista.tamano;
+        }
+        return total;
+    }
+
+    /**
+     * Puntuación de cada documento para un término (la mejor de sus coincidencias), sumada a la
+     * acumulada de los términos anteriores. Solo sobreviven los documentos que ya eran candidatos.
+     */
+    private Map<Integer, Integer> puntuarTermino(String termino, Map<Integer, Integer> previos) {
+        Map<Integer, Integer> puntos = new HashMap<>();
+        acumular(terminosNombre, termino, NOMBRE_EXACTO, NOMBRE_PREFIJO, previos, puntos);
+        acumular(terminosDescripcion, termino, DESCRIPCION_EXACTO, DESCRIPCION_PREFIJO, previos, puntos);
+        if (previos != null) {
+            puntos.replaceAll((doc, p) -> p + previos.get(doc));
+        }
+        return puntos;
+    }
+
+    private void acumular(TreeMap<String, ListaDocs> terminos, String termino, int exacto, int prefijo,
+                          Map<Integer, Integer> previos, Map<Integer, Integer> puntos) {
+        for (Map.Entry<String, ListaDocs> entrada : coincidencias(terminos, termino).entrySet()) {
+            int peso = entrada.getKey().length() == termino.length() ? exacto : prefijo;
+            ListaDocs lista = entrada.getValue();
+            for (int i = 0; i < lista.tamano; i++) {
+                int doc = lista.docs[i];
+                if (eliminados.get(doc) || (previos != null && !previos.containsKey(doc))) {
+                    continue;
+                }
+                puntos.merge(doc, peso, Math::max);
+            }
+        }
+    }
+
+    private List<ProductoBusquedaResponse> mejores(Map<Integer, Integer> candidatos, int limite) {
+        // Mejor: más puntuación, luego nombre más corto (coincidencia más precisa), luego id menor
+        Comparator<Map.Entry<Integer, Integer>> mejorPrimero = Comparator
+                .<Map.Entry<Integer, Integer>>comparingInt(e -> -e.getValue())
+                .thenComparingInt(e -> longitud(nombrePorDoc[e.getKey()]))
+                .thenComparingLong(e -> productoPorDoc[e.getKey()]);
+        PriorityQueue<Map.Entry<Integer, Integer>> top = new PriorityQueue<>(limite + 1, mejorPrimero.reversed());
+        for (Map.Entry<Integer, Integer> candidato : candidatos.entrySet()) {
+            top.offer(candidato);
+            if (top.size() > limite) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<Integer, Integer>> ordenados = new ArrayList<>(top);
+        ordenados.sort(mejorPrimero);
+        return ordenados.stream()
+                .map(e -> new ProductoBusquedaResponse(productoPorDoc[e.getKey()], nombrePorDoc[e.getKey()], e.getValue()))
+                .toList();
+    }
+
+    private void compactarSiHaceFalta() {
+        if (totalEliminados < MINIMO_ELIMINADOS_PARA_COMPACTAR || totalEliminados < docPorProducto.size()) {
+            return;
+        }
+        int[] nuevoDoc = new int[totalDocs];
+        int vivos = 0;
+        for (int doc = 0; doc < totalDocs; doc++) {
+            nuevoDoc[doc] = eliminados.get(doc) ? -1 : vivos++;
+        }
+        long[] productos = new long[Math.max(vivos * 2, 1024)];
+        String[] nombres = new String[productos.length];
+        for (int doc = 0; doc < totalDocs; doc++) {
+            if (nuevoDoc[doc] >= 0) {
+                productos[nuevoDoc[doc]] = productoPorDoc[doc];
+                nombres[nuevoDoc[doc]] = nombrePorDoc[doc];
+                docPorProducto.put(productoPorDoc[doc], nuevoDoc[doc]);
+            }
+        }
+        renumerar(terminosNombre, nuevoDoc);
+        renumerar(terminosDescripcion, nuevoDoc);
+        productoPorDoc = productos;
+        nombrePorDoc = nombres;
+        totalDocs = vivos;
+        totalEliminados = 0;
+        eliminados.clear();
+    }
+
+    private static void renumerar(TreeMap<String, ListaDocs> terminos, int[] nuevoDoc) {
+        Iterator<ListaDocs> it = terminos.values().iterator();
+        while (it.hasNext()) {
+            ListaDocs lista = it.next();
+            lista.renumerar(nuevoDoc);
+            if (lista.tamano == 0) {
+                it.remove();
+            }
+        }
+    }
+
+    private static NavigableMap<String, ListaDocs> coincidencias(TreeMap<String, ListaDocs> terminos, String termino) {
+        if (termino.length() < MINIMO_PREFIJO) {
+            return terminos.subMap(termino, true, termino, true);
+        }
+        return terminos.subMap(termino, true, termino + Character.MAX_VALUE, false);
+    }
+
+    private static int longitud(String texto) {
+        return texto == null ? 0 : texto.length();
+    }
+
+    static Set<String> tokenizar(String texto) {
+        Set<String> terminos = new LinkedHashSet<>();
+        if (texto == null || texto.isBlank()) {
+            return terminos;
+        }
+        String normalizado = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String termino : SEPARADORES.split(normalizado)) {
+            if (!termino.isEmpty()) {
+                terminos.add(termino);
+            }
+        }
+        return terminos;
+    }
+
+    /** Lista creciente de números de documento sin encapsular cada uno en un Integer. */
+    private static final class ListaDocs {
+        private int[] docs = new int[2];
+        private int tamano;
+
+        void agregar(int doc) {
+            if (tamano == docs.length) {
+                docs = Arrays.copyOf(docs, tamano * 2);
+            }
+            docs[tamano++] = doc;
+        }
+
+        void renumerar(int[] nuevoDoc) {
+            int j = 0;
+            for (int i = 0; i < tamano; i++) {
+                int nuevo = nuevoDoc[docs[i]];
+                if (nuevo >= 0) {
+                    docs[j++] = nuevo;
+                }
+            }
+            tamano = j;
+            if (docs.length > 2 * Math.max(tamano, 1)) {
+                docs = Arrays.copyOf(docs, Math.max(tamano, 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ProductoCambioResponse;
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import com.example.productos.model.Producto;
+import com.example.productos.model.ProductoCambio;
+import com.example.productos.model.ProductoCambio.Tipo;
+import com.example.productos.pagination.PaginaCursor;
+import com.example.productos.repository.ProductoCambioRepository;
+import com.example.productos.repository.ProductoCambioRepository.CambioFila;
+import com.example.productos.repository.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feed de cambios del catálogo para sincronizaciones incrementales. Cada cambio de producto deja
+ * un registro en {@code productos_cambios} dentro de su propia transacción; los consumidores leen
+ * a partir de un token de reanudación y el coste es proporcional a los cambios, no al catálogo.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductoCambioService {
+
+    private final ProductoCambioRepository productoCambioRepository;
+    private final ProductoRepository productoRepository;
+
+    // @EventListener corre en el hilo y la transacción de quien publica: si el cambio se deshace, el registro también
+    @EventListener
+    public void alGuardarProducto(ProductoGuardadoEvent event) {
+        registrar(event.getProducto().getId(), Tipo.UPSERT);
+    }
+
+    @EventListener
+    public void alEliminarProducto(ProductoEliminadoEvent event) {
+        registrar(event.getProductoId(), Tipo.DELETE);
+    }
+
+    /**
+     * Cambios posteriores a {@code token} (desde el principio si es nulo). Si un producto cambia
+     * varias veces dentro de la página solo se entrega su último cambio; los UPSERT llevan el
+     * estado actual del producto. El siguiente token es el de la última fila leída.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<ProductoCambioResponse> listarCambios(String token, int limite) {
+        long desde = leerToken(token);
+        List<CambioFila> filas = productoCambioRepository.buscarDesde(desde, limite);
+        if (filas.isEmpty()) {
+            return new PaginaCursor<>(List.of(), String.valueOf(desde));
+        }
+
+        Map<Long, CambioFila> ultimoPorProducto = new LinkedHashMap<>();
+        for (CambioFila fila : filas) {
+            // Se reinserta para que quede en la posición de su último cambio
+            ultimoPorProducto.remove(fila.getProductoId());
+            ultimoPorProducto.put(fila.getProductoId(), fila);
+        }
+        List<Long> upserts = ultimoPorProducto.values().stream()
+                .filter(f -> Tipo.valueOf(f.getTipo()) == Tipo.UPSERT)
+                .map(CambioFila::getProductoId)
+                .toList();
+        Map<Long, Producto> estados = new HashMap<>();
+        if (!upserts.isEmpty()) {
+            productoRepository.findByIdIn(upserts).forEach(p -> estados.put(p.getId(), p));
+        }
+
+        List<ProductoCambioResponse> cambios = new ArrayList<>(ultimoPorProducto.size());
+        for (CambioFila fila : ultimoPorProducto.values()) {
+            Tipo tipo = Tipo.valueOf(fila.getTipo());
+            Producto producto = tipo == Tipo.UPSERT ? estados.get(fila.getProductoId()) : null;
+            cambios.add(ProductoCambioResponse.builder()
+                    .token(String.valueOf(fila.getPosicion()))
+                    .tipo(tipo)
+                    .productoId(fila.getProductoId())
+                    .fecha(fila.getFecha())
+                    .producto(producto == null ? null : mapToResponse(producto))
+                    .build());
+        }
+        return new PaginaCursor<>(cambios, String.valueOf(filas.get(filas.size() - 1).getPosicion()));
+    }
+
+    private void registrar(Long productoId, Tipo tipo) {
+        productoCambioRepository.save(ProductoCambio.builder()
+                .productoId(productoId)
+                .tipo(tipo)
+                .fecha(Instant.now())
+                .build());
+    }
+
+    private long leerToken(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            long posicion = Long.parseLong(token);
+            if (posicion < 0) {
+                throw new NumberFormatException();
+            }
+            return posicion;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Token de cambios inválido: " + token);
+        }
+    }
+
+    private ProductoResponse mapToResponse(Producto producto) {
+        return ProductoResponse.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .precio(producto.getPrecio())
+                .stock(producto.getStock())
+                .version(producto.getVersion())
+                .build();
+    }
+}
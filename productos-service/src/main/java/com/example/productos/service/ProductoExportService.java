@@ -0,0 +1,83 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.model.Producto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+/**
+ * Exportación del catálogo completo como JSON delimitado por saltos de línea (NDJSON).
+ * Recorre la tabla con un cursor JDBC de solo avance y escribe cada producto en la salida
+ * según se lee, desacoplándolo del contexto de persistencia: la memoria usada no depende
+ * del número de filas.
+ */
+@Service
+public class ProductoExportService {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter writer;
+
+    @Value("${productos.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    public ProductoExportService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.writer = objectMapper.writer()
+                // Se vacía la salida por bloques, no después de cada producto
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                // Las líneas las separa el salto de línea, sin el espacio que Jackson pone entre valores raíz
+                .withRootValueSeparator("");
+    }
+
+    public void exportarNdjson(OutputStream salida) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Producto> productos = entityManager
+                         .createQuery("select p from Producto p order by p.id", Producto.class)
+                         .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                         .setHint(AvailableHints.HINT_READ_ONLY, true)
+                         .getResultStream();
+                 JsonGenerator generador = writer.createGenerator(salida)) {
+                generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                long escritos = 0;
+                for (Producto producto : (Iterable<Producto>) productos::iterator) {
+                    writer.writeValue(generador, mapToResponse(producto));
+                    generador.writeRaw('\n');
+                    entityManager.detach(producto);
+                    if (++escritos % fetchSize == 0) {
+                        generador.flush();
+                    }
+                }
+                generador.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private ProductoResponse mapToResponse(Producto producto) {
+        return ProductoResponse.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .precio(producto.getPrecio())
+                .stock(producto.getStock())
+                .build();
+    }
+}
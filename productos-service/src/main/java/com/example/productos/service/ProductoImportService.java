@@ -0,0 +1,214 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ImportacionResponse;
+import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoLoteResultado;
+import com.example.productos.exception.ResourceNotFoundException;
+import com.example.productos.importacion.BloqueImportacion;
+import com.example.productos.importacion.FormatoImportacion;
+import com.example.productos.importacion.ImportacionProductos;
+import com.example.productos.importacion.LectorProductos;
+import com.example.productos.importacion.RegistroImportado;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON.
+ * El fichero se vuelca a disco y se procesa en segundo plano con dos hilos unidos por
+ * una cola acotada: el lector interpreta y valida registros y forma bloques, y el escritor
+ * guarda cada bloque en su propia transacción mediante {@link ProductoLoteService}.
+ * Un bloque que falla se informa y la importación continúa con el siguiente.
+ */
+@Slf4j
+@Service
+public class ProductoImportService {
+
+    private final ProductoLoteService productoLoteService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor executor;
+    private final Map<String, ImportacionProductos> importaciones = new ConcurrentHashMap<>();
+    private final Semaphore importacionesActivas;
+
+    @Value("${productos.importacion.tamano-bloque:1000}")
+    private int tamanoBloque = 1000;
+
+    @Value("${productos.importacion.capacidad-cola:4}")
+    private int capacidadCola = 4;
+
+    @Value("${productos.importacion.historial:100}")
+    private int maximoHistorial = 100;
+
+    public ProductoImportService(ProductoLoteService productoLoteService, Validator validator, ObjectMapper objectMapper,
+                                 SimpleAsyncTaskExecutorBuilder executorBuilder,
+                                 @Value("${productos.importacion.maximo-simultaneas:2}") int maximoSimultaneas) {
+        this.productoLoteService = productoLoteService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.executor = executorBuilder.threadNamePrefix("importacion-").build();
+        this.importacionesActivas = new Semaphore(maximoSimultaneas);
+    }
+
+    public ImportacionProductos iniciarImportacion(InputStream contenido, FormatoImportacion formato) throws IOException {
+        if (!importacionesActivas.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Hay demasiadas importaciones en curso; inténtelo más tarde");
+        }
+        Path fichero;
+        try {
+            // El cuerpo de la petición deja de estar disponible al responder: se copia a disco
+            fichero = Files.createTempFile("productos-import-", "." + formato.name().toLowerCase());
+            Files.copy(contenido, fichero, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException ex) {
+            importacionesActivas.release();
+            throw ex;
+        }
+
+        ImportacionProductos importacion = new ImportacionProductos(UUID.randomUUID().toString(), formato);
+        purgarHistorial();
+        importaciones.put(importacion.getId(), importacion);
+
+        BlockingQueue<BloqueImportacion> cola = new ArrayBlockingQueue<>(capacidadCola);
+        executor.execute(() -> escribir(importacion, cola, fichero));
+        executor.execute(() -> leer(importacion, cola, fichero, formato));
+        return importacion;
+    }
+
+    public ImportacionResponse obtenerImportacion(String id) {
+        ImportacionProductos importacion = importaciones.get(id);
+        if (importacion == null) {
+            throw new ResourceNotFoundException("Importación no encontrada con id: " + id);
+        }
+        return importacion.toResponse();
+    }
+
+    private void leer(ImportacionProductos importacion, BlockingQueue<BloqueImportacion> cola, Path fichero,
+                      FormatoImportacion formato) {
+        try (BufferedReader reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            LectorProductos lector = new LectorProductos(reader, formato, objectMapper);
+            List<ProductoDTO> productos = new ArrayList<>(tamanoBloque);
+            long primeraLinea = 0;
+            long ultimaLinea = 0;
+            RegistroImportado registro;
+            while ((registro = lector.siguiente()) != null) {
+                String error = registro.getError() != null ? registro.getError() : validar(registro.getProducto());
+                if (error != null) {
+                    importacion.registroInvalido(registro.getLinea(), error);
+                    continue;
+                }
+                importacion.registroValido();
+                if (productos.isEmpty()) {
+                    primeraLinea = registro.getLinea();
+                }
+                ultimaLinea = registro.getLinea();
+                productos.add(registro.getProducto());
+                if (productos.size() == tamanoBloque) {
+                    // Si el escritor va por detrás, el lector espera aquí: la cola acota la memoria
+                    cola.put(new BloqueImportacion(primeraLinea, ultimaLinea, productos));
+                    productos = new ArrayList<>(tamanoBloque);
+                }
+            }
+            if (!productos.isEmpty()) {
+                cola.put(new BloqueImportacion(primeraLinea, ultimaLinea, productos));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            importacion.lecturaInterrumpida("hilo interrumpido");
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Importación {}: error leyendo el fichero", importacion.getId(), ex);
+            importacion.lecturaInterrumpida(ex.getMessage());
+        } finally {
+            finalizarCola(cola);
+        }
+    }
+
+    private void escribir(ImportacionProductos importacion, BlockingQueue<BloqueImportacion> cola, Path fichero) {
+        try {
+            BloqueImportacion bloque;
+            while ((bloque = cola.take()) != BloqueImportacion.FIN) {
+                try {
+                    long guardados = productoLoteService.crearProductos(bloque.getProductos()).stream()
+                            .filter(r -> r.getEstado() == ProductoLoteResultado.Estado.CREADO)
+                            .count();
+                    importacion.bloqueGuardado(guardados);
+                } catch (RuntimeException ex) {
+                    log.warn("Importación {}: bloque de líneas {}-{} no guardado", importacion.getId(),
+                            bloque.getPrimeraLinea(), bloque.getUltimaLinea(), ex);
+                    importacion.bloqueFallido(bloque.getPrimeraLinea(), bloque.getUltimaLinea(), ex.getMessage());
+                }
+            }
+            importacion.terminar(importacion.isLecturaInterrumpida()
+                    ? ImportacionProductos.Estado.FALLIDA : ImportacionProductos.Estado.COMPLETADA);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            importacion.terminar(ImportacionProductos.Estado.FALLIDA);
+        } finally {
+            importacionesActivas.release();
+            try {
+                Files.deleteIfExists(fichero);
+            } catch (IOException ex) {
+                log.warn("No se pudo borrar el fichero temporal {}", fichero, ex);
+            }
+        }
+    }
+
+    private void finalizarCola(BlockingQueue<BloqueImportacion> cola) {
+        boolean interrumpido = false;
+        while (true) {
+            try {
+                cola.put(BloqueImportacion.FIN);
+                break;
+            } catch (InterruptedException ex) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String validar(ProductoDTO producto) {
+        if (producto == null) {
+            return "Registro vacío";
+        }
+        var violaciones = validator.validate(producto);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void purgarHistorial() {
+        if (importaciones.size() < maximoHistorial) {
+            return;
+        }
+        importaciones.values().removeIf(ImportacionProductos::isTerminada);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoLoteActualizacionDTO;
+import com.example.productos.dto.ProductoLoteResultado;
+import com.example.productos.dto.ProductoLoteResultado.Estado;
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.event.ProductoEventPublisher;
+import com.example.productos.model.Producto;
+import com.example.productos.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Alta y actualización masiva de productos en una sola transacción.
+ * Los elementos se validan uno a uno y los válidos se escriben en lotes JDBC
+ * de {@code productos.lote.tamano} filas, vaciando el contexto de persistencia
+ * entre lotes para que la memoria no crezca con el tamaño de la petición.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductoLoteService {
+
+    private final ProductoRepository productoRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ProductoEventPublisher eventPublisher;
+
+    @Value("${productos.lote.tamano:500}")
+    private int tamanoLote = 500;
+
+    @Value("${productos.lote.maximo-items:10000}")
+    private int maximoItems = 10000;
+
+    @Transactional
+    public List<ProductoLoteResultado> crearProductos(List<ProductoDTO> productos) {
+        validarTamano(productos.size());
+        List<ProductoLoteResultado> resultados = new ArrayList<>(productos.size());
+        List<Producto> pendientes = new ArrayList<>(tamanoLote);
+        List<ProductoLoteResultado> resultadosPendientes = new ArrayList<>(tamanoLote);
+
+        for (int i = 0; i < productos.size(); i++) {
+            List<String> errores = validar(productos.get(i));
+            if (!errores.isEmpty()) {
+                resultados.add(new ProductoLoteResultado(i, Estado.INVALIDO, null, errores));
+                continue;
+            }
+            ProductoLoteResultado resultado = new ProductoLoteResultado(i, Estado.CREADO, null, List.of());
+            resultados.add(resultado);
+            pendientes.add(mapToEntity(productos.get(i)));
+            resultadosPendientes.add(resultado);
+            if (pendientes.size() == tamanoLote) {
+                guardarLote(pendientes, resultadosPendientes);
+            }
+        }
+        if (!pendientes.isEmpty()) {
+            guardarLote(pendientes, resultadosPendientes);
+        }
+        return resultados;
+    }
+
+    @Transactional
+    public List<ProductoLoteResultado> actualizarProductos(List<ProductoLoteActualizacionDTO> items) {
+        validarTamano(items.size());
+        ProductoLoteResultado[] resultados = new ProductoLoteResultado[items.size()];
+        List<Integer> validos = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            List<String> errores = validar(items.get(i));
+            if (errores.isEmpty()) {
+                validos.add(i);
+            } else {
+                resultados[i] = new ProductoLoteResultado(i, Estado.INVALIDO, null, errores);
+            }
+        }
+
+        for (int inicio = 0; inicio < validos.size(); inicio += tamanoLote) {
+            List<Integer> bloque = validos.subList(inicio, Math.min(inicio + tamanoLote, validos.size()));
+            Map<Long, Producto> existentes = new HashMap<>();
+            productoRepository.findByIdIn(bloque.stream().map(i -> items.get(i).getId()).distinct().toList())
+                    .forEach(p -> existentes.put(p.getId(), p));
+            List<Producto> modificados = new ArrayList<>(bloque.size());
+
+            for (Integer i : bloque) {
+                ProductoLoteActualizacionDTO item = items.get(i);
+                Producto producto = existentes.get(item.getId());
+                if (producto == null) {
+                    resultados[i] = new ProductoLoteResultado(i, Estado.NO_ENCONTRADO, item.getId(),
+                            List.of("Producto no encontrado con id: " + item.getId()));
+                    continue;
+                }
+                producto.setNombre(item.getProducto().getNombre());
+                producto.setDescripcion(item.getProducto().getDescripcion());
+                producto.setPrecio(item.getProducto().getPrecio());
+                producto.setStock(item.getProducto().getStock());
+                modificados.add(producto);
+                resultados[i] = new ProductoLoteResultado(i, Estado.ACTUALIZADO, item.getId(), List.of());
+            }
+            // Los UPDATE de las entidades modificadas salen agrupados en el flush, que también
+            // incrementa su version: los eventos se publican después para llevar la nueva
+            entityManager.flush();
+            modificados.forEach(this::publicarGuardado);
+            entityManager.clear();
+        }
+        return List.of(resultados);
+    }
+
+    private void guardarLote(List<Producto> pendientes, List<ProductoLoteResultado> resultadosPendientes) {
+        List<Producto> guardados = productoRepository.saveAll(pendientes);
+        entityManager.flush();
+        entityManager.clear();
+        for (int i = 0; i < guardados.size(); i++) {
+            resultadosPendientes.get(i).setId(guardados.get(i).getId());
+            publicarGuardado(guardados.get(i));
+        }
+        pendientes.clear();
+        resultadosPendientes.clear();
+    }
+
+    private void publicarGuardado(Producto producto) {
+        eventPublisher.publishProductoGuardadoEvent(ProductoResponse.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .precio(producto.getPrecio())
+                .stock(producto.getStock())
+                .version(producto.getVersion())
+                .build());
+    }
+
+    private void validarTamano(int cantidad) {
+        if (cantidad > maximoItems) {
+            throw new IllegalArgumentException("Un lote no puede contener más de " + maximoItems + " productos");
+        }
+    }
+
+    private <T> List<String> validar(T item) {
+        if (item == null) {
+            return List.of("El elemento no puede ser nulo");
+        }
+        Set<ConstraintViolation<T>> violaciones = validator.validate(item);
+        return violaciones.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    private Producto mapToEntity(ProductoDTO productoDTO) {
+        return Producto.builder()
+                .nombre(productoDTO.getNombre())
+                .descripcion(productoDTO.getDescripcion())
+                .precio(productoDTO.getPrecio())
+                .stock(productoDTO.getStock())
+                .build();
+    }
+}
@@ -1,61 +1,375 @@
 package com.example.productos.service;
 
+import com.example.productos.cache.ProductoCache;
+import com.example.productos.cache.ProductoIdFilter;
 import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoFiltro;
+import com.example.productos.dto.ProductoParcial;
 import com.example.productos.dto.ProductoResponse;
+import com.example.productos.dto.ProductosPorIdsResponse;
+import com.example.productos.event.ProductoEventPublisher;
+import com.example.productos.exception.PrecondicionFallidaException;
 import com.example.productos.exception.ResourceNotFoundException;
 import com.example.productos.model.Producto;
+import com.example.productos.pagination.PaginaCursor;
+import com.example.productos.pagination.ProductoCursor;
 import com.example.productos.repository.ProductoRepository;
+import com.example.productos.repository.ProductoSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class ProductoService {
     
+    private static final List<String> CAMPOS_SELECCIONABLES = List.of("id", "nombre", "descripcion", "precio", "stock");
+    private static final Set<String> CAMPOS_PARCHEABLES = Set.of("nombre", "descripcion", "precio", "stock");
+    
     private final ProductoRepository productoRepository;
+    private final ProductoEventPublisher eventPublisher;
+    private final ProductoCache productoCache;
+    private final ProductoIdFilter productoIdFilter;
+    private final Validator validator;
+
+    // SQL Server admite como máximo 2100 parámetros por sentencia
+    @Value("${productos.consulta-ids.tamano-bloque:1000}")
+    private int tamanoBloqueIds = 1000;
+
+    @Value("${productos.consulta-ids.maximo:10000}")
+    private int maximoIdsPorConsulta = 10000;
+
+    @Value("${productos.cursor.tamano-pagina:20}")
+    private int tamanoPaginaCursor = 20;
     
     @Transactional
     public ProductoResponse crearProducto(ProductoDTO productoDTO) {
         Producto producto = mapToEntity(productoDTO);
         Producto nuevoProducto = productoRepository.save(producto);
-        return mapToResponse(nuevoProducto);
+        ProductoResponse response = mapToResponse(nuevoProducto);
+        eventPublisher.publishProductoGuardadoEvent(response);
+        return response;
     }
     
-    @Transactional(readOnly = true)
+    /**
+     * Lectura a través de la caché: los aciertos no abren transacción ni conexión;
+     * los fallos se resuelven con un {@code findById}, que ya es transaccional.
+     * Los IDs que el filtro sabe inexistentes no llegan a consultarse.
+     */
     public ProductoResponse obtenerProductoPorId(Long id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
-        return mapToResponse(producto);
+        if (!productoIdFilter.puedeExistir(id)) {
+            throw noEncontrado(id);
+        }
+        return productoCache.obtener(id, clave -> productoRepository.findById(clave)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> {
+                    productoIdFilter.registrarFalsoPositivo();
+                    return noEncontrado(clave);
+                }));
+    }
+    
+    /**
+     * Versión actual del producto para resolver peticiones condicionales sin cargarlo:
+     * sale de la caché si está y, si no, de una consulta que solo lee la columna version.
+     */
+    public Long obtenerVersionProducto(Long id) {
+        ProductoResponse cacheado = productoCache.buscar(id);
+        if (cacheado != null) {
+            return cacheado.getVersion();
+        }
+        if (!productoIdFilter.puedeExistir(id)) {
+            throw noEncontrado(id);
+        }
+        return productoRepository.findVersionById(id)
+                .orElseThrow(() -> {
+                    productoIdFilter.registrarFalsoPositivo();
+                    return noEncontrado(id);
+                });
     }
     
+    @Transactional(readOnly = true)
+    public ProductosPorIdsResponse obtenerProductosPorIds(Collection<Long> ids) {
+        List<Long> idsUnicos = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (idsUnicos.size() > maximoIdsPorConsulta) {
+            throw new IllegalArgumentException("No se pueden consultar más de " + maximoIdsPorConsulta + " productos a la vez");
+        }
+
+        // Una consulta IN por bloque en lugar de un findById por producto
+        Map<Long, Producto> encontrados = new HashMap<>();
+        for (int inicio = 0; inicio < idsUnicos.size(); inicio += tamanoBloqueIds) {
+            List<Long> bloque = idsUnicos.subList(inicio, Math.min(inicio + tamanoBloqueIds, idsUnicos.size()));
+            productoRepository.findByIdIn(bloque).forEach(p -> encontrados.put(p.getId(), p));
+        }
+
+        // Se respeta el orden en que se pidieron los IDs
+        List<ProductoResponse> productos = new ArrayList<>(encontrados.size());
+        List<Long> idsNoEncontrados = new ArrayList<>();
+        for (Long id : idsUnicos) {
+            Producto producto = encontrados.get(id);
+            if (producto != null) {
+                productos.add(mapToResponse(producto));
+            } else {
+                idsNoEncontrados.add(id);
+            }
+        }
+        return new ProductosPorIdsResponse(productos, idsNoEncontrados);
+    }
+    
+    /**
+     * Actualiza el producto con control optimista: si se indica {@code versionEsperada} y no es la
+     * actual se rechaza; si otro cambio se cuela entre la lectura y la escritura, el UPDATE
+     * condicionado por version no afecta filas y Hibernate lanza un fallo de bloqueo optimista.
+     */
     @Transactional
-    public ProductoResponse actualizarProducto(Long id, ProductoDTO productoDTO) {
+    public ProductoResponse actualizarProducto(Long id, ProductoDTO productoDTO, Long versionEsperada) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
+        if (versionEsperada != null && !versionEsperada.equals(producto.getVersion())) {
+            throw versionNoCoincide(id, versionEsperada);
+        }
         
         producto.setNombre(productoDTO.getNombre());
         producto.setDescripcion(productoDTO.getDescripcion());
         producto.setPrecio(productoDTO.getPrecio());
         producto.setStock(productoDTO.getStock());
         
-        Producto productoActualizado = productoRepository.save(producto);
-        return mapToResponse(productoActualizado);
+        // El flush emite el UPDATE ya, para devolver la versión nueva
+        Producto productoActualizado = productoRepository.saveAndFlush(producto);
+        productoCache.invalidar(id);
+        ProductoResponse response = mapToResponse(productoActualizado);
+        eventPublisher.publishProductoGuardadoEvent(response);
+        return response;
+    }
+    
+    /**
+     * Aplica un JSON Merge Patch (RFC 7396) con un único UPDATE de las columnas presentes
+     * en el parche; un valor {@code null} deja la columna a NULL si el campo lo admite.
+     */
+    @Transactional
+    public ProductoResponse parchearProducto(Long id, JsonNode parche, Long versionEsperada) {
+        Map<String, Object> cambios = leerParche(parche);
+        if (cambios.isEmpty()) {
+            // Un parche vacío no modifica nada, pero la precondición se sigue evaluando
+            ProductoResponse actual = obtenerProductoPorId(id);
+            if (versionEsperada != null && !versionEsperada.equals(actual.getVersion())) {
+                throw versionNoCoincide(id, versionEsperada);
+            }
+            return actual;
+        }
+        Producto producto = productoRepository.actualizarCampos(id, cambios, versionEsperada)
+                .orElseThrow(() -> versionEsperada != null && productoRepository.existsById(id)
+                        ? versionNoCoincide(id, versionEsperada)
+                        : new ResourceNotFoundException("Producto no encontrado con id: " + id));
+        productoCache.invalidar(id);
+        ProductoResponse response = mapToResponse(producto);
+        eventPublisher.publishProductoGuardadoEvent(response);
+        return response;
     }
     
     @Transactional
     public void eliminarProducto(Long id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
-        productoRepository.delete(producto);
+        if (productoRepository.eliminarPorId(id) == 0) {
+            throw new ResourceNotFoundException("Producto no encontrado con id: " + id);
+        }
+        productoCache.invalidar(id);
+        eventPublisher.publishProductoEliminadoEvent(id);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<ProductoResponse> listarTodosLosProductos(Pageable pageable, ProductoFiltro filtro) {
+        Page<Producto> productos = filtro == null || filtro.isVacio()
+                ? productoRepository.findAll(pageable)
+                : productoRepository.findAll(especificacion(filtro), pageable);
+        return productos.map(this::mapToResponse);
     }
     
+    /**
+     * Listado por cursor: busca a partir de la última fila entregada sobre (campo, id)
+     * en vez de usar OFFSET, y no ejecuta el COUNT(*) de la paginación clásica.
+     * Con cursor nulo o vacío devuelve la primera página usando el orden de {@code pageable}.
+     */
     @Transactional(readOnly = true)
-    public Page<ProductoResponse> listarTodosLosProductos(Pageable pageable) {
-        return productoRepository.findAll(pageable)
-                .map(this::mapToResponse);
+    public PaginaCursor<ProductoResponse> listarProductosPorCursor(String cursor, Pageable pageable, ProductoFiltro filtro) {
+        int tamano = pageable.isPaged() ? pageable.getPageSize() : tamanoPaginaCursor;
+        ProductoCursor posicion = posicionCursor(cursor, pageable);
+        Sort orden = posicion.orden();
+        List<Producto> filas = productoRepository.findBy(filtroCursor(posicion, filtro), q -> q.sortBy(orden).limit(tamano + 1).all());
+
+        // Se pide una fila de más para saber si hay página siguiente sin contar
+        boolean haySiguiente = filas.size() > tamano;
+        List<Producto> pagina = haySiguiente ? filas.subList(0, tamano) : filas;
+        String siguienteCursor = null;
+        if (haySiguiente) {
+            Producto ultimo = pagina.get(pagina.size() - 1);
+            Object valor = switch (posicion.getCampo()) {
+                case "nombre" -> ultimo.getNombre();
+                case "precio" -> ultimo.getPrecio();
+                default -> ultimo.getId();
+            };
+            siguienteCursor = siguienteCursor(posicion, ultimo.getId(), valor);
+        }
+        return new PaginaCursor<>(pagina.stream().map(this::mapToResponse).toList(), siguienteCursor);
+    }
+    
+    /**
+     * Listado paginado que solo lee de la base de datos las columnas de {@code campos}
+     * (fields[productos] de JSON:API). El ID se lee siempre porque identifica el recurso.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductoParcial> listarProductosConCampos(Pageable pageable, Set<String> campos, ProductoFiltro filtro) {
+        List<String> columnas = columnasProyeccion(campos, null);
+        Specification<Producto> especificacion = filtro == null || filtro.isVacio() ? null : especificacion(filtro);
+        List<Map<String, Object>> filas = pageable.isPaged()
+                ? productoRepository.buscarCampos(columnas, especificacion, pageable.getSort(), pageable.getOffset(), pageable.getPageSize())
+                : productoRepository.buscarCampos(columnas, especificacion, pageable.getSort(), 0, -1);
+        List<ProductoParcial> contenido = filas.stream().map(f -> toParcial(f, campos)).toList();
+        // Solo cuenta si la página no basta para deducir el total
+        return PageableExecutionUtils.getPage(contenido, pageable, () -> especificacion == null
+                ? productoRepository.count()
+                : productoRepository.count(especificacion));
+    }
+    
+    /**
+     * Listado por cursor con proyección de campos; además de los pedidos se lee la columna
+     * del orden, necesaria para construir el cursor siguiente.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<ProductoParcial> listarProductosPorCursor(String cursor, Pageable pageable, Set<String> campos,
+                                                                  ProductoFiltro filtro) {
+        int tamano = pageable.isPaged() ? pageable.getPageSize() : tamanoPaginaCursor;
+        ProductoCursor posicion = posicionCursor(cursor, pageable);
+        List<Map<String, Object>> filas = productoRepository.buscarCampos(
+                columnasProyeccion(campos, posicion.getCampo()), filtroCursor(posicion, filtro), posicion.orden(), 0, tamano + 1);
+
+        boolean haySiguiente = filas.size() > tamano;
+        List<Map<String, Object>> pagina = haySiguiente ? filas.subList(0, tamano) : filas;
+        String siguienteCursor = null;
+        if (haySiguiente) {
+            Map<String, Object> ultima = pagina.get(pagina.size() - 1);
+            siguienteCursor = siguienteCursor(posicion, (Long) ultima.get("id"), ultima.get(posicion.getCampo()));
+        }
+        return new PaginaCursor<>(pagina.stream().map(f -> toParcial(f, campos)).toList(), siguienteCursor);
+    }
+    
+    /** Posición de partida: la del cursor, autocontenido con su propio orden, o el inicio según {@code pageable}. */
+    private ProductoCursor posicionCursor(String cursor, Pageable pageable) {
+        if (cursor != null && !cursor.isBlank()) {
+            return ProductoCursor.decodificar(cursor);
+        }
+        Sort.Order primero = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        ProductoCursor.validarCampo(primero.getProperty());
+        return new ProductoCursor(primero.getProperty(), primero.getDirection(), null, null);
+    }
+    
+    private Specification<Producto> filtroCursor(ProductoCursor posicion, ProductoFiltro filtro) {
+        // En la primera página no hay posición: sin predicado, que Specification trata como "sin restricción"
+        Specification<Producto> despues = posicion.getUltimoId() == null
+                ? (root, query, cb) -> null
+                : ProductoSpecifications.despuesDe(posicion);
+        return filtro == null || filtro.isVacio() ? despues : despues.and(especificacion(filtro));
+    }
+    
+    private Specification<Producto> especificacion(ProductoFiltro filtro) {
+        if (filtro.getPrecioMin() != null && filtro.getPrecioMax() != null
+                && filtro.getPrecioMin().compareTo(filtro.getPrecioMax()) > 0) {
+            throw new IllegalArgumentException("filter[precioMin] no puede ser mayor que filter[precioMax]");
+        }
+        return ProductoSpecifications.conFiltro(filtro);
+    }
+    
+    private String siguienteCursor(ProductoCursor posicion, Long ultimoId, Object ultimoValor) {
+        return new ProductoCursor(posicion.getCampo(), posicion.getDireccion(), ultimoId, ultimoValor).codificar();
+    }
+    
+    /** Columnas a consultar, en orden fijo: id, las pedidas y la adicional si la hay. */
+    private List<String> columnasProyeccion(Set<String> campos, String adicional) {
+        for (String campo : campos) {
+            if (!CAMPOS_SELECCIONABLES.contains(campo)) {
+                throw new IllegalArgumentException("Campo desconocido en fields[productos]: " + campo);
+            }
+        }
+        return CAMPOS_SELECCIONABLES.stream()
+                .filter(c -> c.equals("id") || campos.contains(c) || c.equals(adicional))
+                .toList();
+    }
+    
+    private ProductoParcial toParcial(Map<String, Object> fila, Set<String> campos) {
+        Map<String, Object> atributos = new LinkedHashMap<>(fila);
+        atributos.keySet().retainAll(campos);
+        return new ProductoParcial((Long) fila.get("id"), atributos);
+    }
+    
+    private Map<String, Object> leerParche(JsonNode parche) {
+        if (parche == null || !parche.isObject()) {
+            throw new IllegalArgumentException("El parche debe ser un objeto JSON");
+        }
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        parche.properties().forEach(campo -> {
+            String nombre = campo.getKey();
+            JsonNode valor = campo.getValue();
+            if (!CAMPOS_PARCHEABLES.contains(nombre)) {
+                throw new IllegalArgumentException("Campo no modificable: " + nombre);
+            }
+            Object convertido;
+            if (valor.isNull()) {
+                convertido = null;
+            } else {
+                convertido = switch (nombre) {
+                    case "nombre", "descripcion" -> {
+                        if (!valor.isTextual()) {
+                            throw new IllegalArgumentException(nombre + ": debe ser un texto");
+                        }
+                        yield valor.textValue();
+                    }
+                    case "precio" -> {
+                        if (!valor.isNumber()) {
+                            throw new IllegalArgumentException(nombre + ": debe ser un número");
+                        }
+                        yield valor.decimalValue();
+                    }
+                    case "stock" -> {
+                        if (!valor.isIntegralNumber() || !valor.canConvertToInt()) {
+                            throw new IllegalArgumentException(nombre + ": debe ser un número entero");
+                        }
+                        yield valor.intValue();
+                    }
+                    default -> throw new IllegalStateException(nombre);
+                };
+            }
+            // Mismas reglas que en la creación y la actualización completa
+            for (ConstraintViolation<ProductoDTO> violacion : validator.validateValue(ProductoDTO.class, nombre, convertido)) {
+                throw new IllegalArgumentException(nombre + ": " + violacion.getMessage());
+            }
+            cambios.put(nombre, convertido);
+        });
+        return cambios;
+    }
+    
+    private ResourceNotFoundException noEncontrado(Long id) {
+        return new ResourceNotFoundException("Producto no encontrado con id: " + id);
+    }
+    
+    private PrecondicionFallidaException versionNoCoincide(Long id, Long versionEsperada) {
+        return new PrecondicionFallidaException("El producto " + id + " fue modificado: la versión "
+                + versionEsperada + " ya no es la actual");
     }
     
     private ProductoResponse mapToResponse(Producto producto) {
@@ -65,6 +379,7 @@ public class ProductoService {
                 .descripcion(producto.getDescripcion())
                 .precio(producto.getPrecio())
                 .stock(producto.getStock())
+                .version(producto.getVersion())
                 .build();
     }
     
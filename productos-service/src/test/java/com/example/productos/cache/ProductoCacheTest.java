@@ -0,0 +1,128 @@
+package com.example.productos.cache;
+
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductoCacheTest {
+
+    private static final int LECTORES = 64;
+
+    /**
+     * Prueba que una ráfaga de lecturas simultáneas del mismo ID ejecuta una sola carga
+     * y que todos los lectores reciben su resultado.
+     */
+    @Test
+    void testRafagaDelMismoIdCompartenUnaCarga() throws Exception {
+        ProductoCache cache = new ProductoCache(100, Duration.ofMinutes(1));
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        Function<Long, ProductoResponse> cargador = id -> {
+            consultas.incrementAndGet();
+            esperar(liberar);
+            return ProductoResponse.builder().id(id).nombre("Viral").build();
+        };
+
+        List<Future<ProductoResponse>> lecturas = lanzar(LECTORES, () -> cache.obtener(1L, cargador), liberar);
+
+        for (Future<ProductoResponse> lectura : lecturas) {
+            assertEquals("Viral", lectura.get(5, TimeUnit.SECONDS).getNombre());
+        }
+        assertEquals(1, consultas.get());
+        assertEquals(1, cache.estadisticas().loadCount());
+    }
+
+    /**
+     * Prueba que la excepción de la carga se comparte con los lectores que esperaban
+     * y que no queda en la caché: la siguiente lectura vuelve a consultar.
+     */
+    @Test
+    void testRafagaCompartenLaExcepcion() throws Exception {
+        ProductoCache cache = new ProductoCache(100, Duration.ofMinutes(1));
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        Function<Long, ProductoResponse> cargador = id -> {
+            consultas.incrementAndGet();
+            esperar(liberar);
+            throw new ResourceNotFoundException("Producto no encontrado con id: " + id);
+        };
+
+        List<Future<ProductoResponse>> lecturas = lanzar(LECTORES, () -> cache.obtener(9L, cargador), liberar);
+
+        for (Future<ProductoResponse> lectura : lecturas) {
+            Exception e = assertThrows(Exception.class, () -> lectura.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, e.getCause());
+        }
+        assertEquals(1, consultas.get());
+        assertThrows(ResourceNotFoundException.class, () -> cache.obtener(9L, cargador));
+        assertEquals(2, consultas.get());
+    }
+
+    /**
+     * Prueba que una carga lenta no bloquea las lecturas de otros IDs y que invalidar
+     * durante la carga impide que su resultado, ya obsoleto, quede en la caché.
+     */
+    @Test
+    void testCargaLentaNoBloqueaOtrosIds() throws Exception {
+        ProductoCache cache = new ProductoCache(100, Duration.ofMinutes(1));
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ProductoResponse> lenta = executor.submit(() -> cache.obtener(1L, id -> {
+                esperar(liberar);
+                return ProductoResponse.builder().id(id).nombre("Antiguo").build();
+            }));
+
+            assertEquals("Otro", cache.obtener(2L, id -> ProductoResponse.builder().id(id).nombre("Otro").build()).getNombre());
+
+            cache.invalidar(1L);
+            liberar.countDown();
+            assertEquals("Antiguo", lenta.get(5, TimeUnit.SECONDS).getNombre());
+            assertNull(cache.buscar(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Future<ProductoResponse>> lanzar(int hilos, Callable<ProductoResponse> lectura,
+                                                         CountDownLatch liberar) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch listos = new CountDownLatch(hilos);
+        List<Future<ProductoResponse>> lecturas = new ArrayList<>(hilos);
+        for (int i = 0; i < hilos; i++) {
+            lecturas.add(executor.submit(() -> {
+                listos.countDown();
+                return lectura.call();
+            }));
+        }
+        // Todos han llegado antes de que termine la primera carga
+        assertTrue(listos.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        liberar.countDown();
+        executor.shutdown();
+        return lecturas;
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.productos.cache;
+
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductoIdFilterTest {
+
+    /**
+     * Prueba que hasta completar la carga inicial todas las consultas pasan.
+     */
+    @Test
+    void testAntesDeLaCargaDejaPasarTodo() {
+        ProductoIdFilter filtro = new ProductoIdFilter(new SimpleMeterRegistry());
+
+        assertTrue(filtro.puedeExistir(42L));
+        filtro.cargaCompleta();
+        assertFalse(filtro.puedeExistir(42L));
+    }
+
+    /**
+     * Prueba altas y bajas en distintas páginas del mapa de bits, incluidos los bordes de palabra y de página.
+     */
+    @Test
+    void testAltasYBajas() {
+        ProductoIdFilter filtro = new ProductoIdFilter(new SimpleMeterRegistry());
+        filtro.cargaCompleta();
+        long[] ids = {0L, 63L, 64L, 65_535L, 65_536L, 10_000_000_000L};
+        for (long id : ids) {
+            filtro.agregar(id);
+        }
+
+        for (long id : ids) {
+            assertTrue(filtro.puedeExistir(id), "id " + id);
+        }
+        assertFalse(filtro.puedeExistir(62L));
+        assertFalse(filtro.puedeExistir(65_537L));
+        assertFalse(filtro.puedeExistir(-1L));
+        assertFalse(filtro.puedeExistir(null));
+
+        filtro.quitar(64L);
+        assertFalse(filtro.puedeExistir(64L));
+        assertTrue(filtro.puedeExistir(63L));
+    }
+
+    /**
+     * Prueba que el filtro se mantiene con los eventos de alta y baja de productos.
+     */
+    @Test
+    void testEventos() {
+        ProductoIdFilter filtro = new ProductoIdFilter(new SimpleMeterRegistry());
+        filtro.cargaCompleta();
+
+        filtro.alGuardarProducto(new ProductoGuardadoEvent(ProductoResponse.builder().id(7L).build()));
+        assertTrue(filtro.puedeExistir(7L));
+        filtro.alEliminarProducto(new ProductoEliminadoEvent(7L));
+        assertFalse(filtro.puedeExistir(7L));
+    }
+}
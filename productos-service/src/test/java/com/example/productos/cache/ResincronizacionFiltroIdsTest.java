@@ -0,0 +1,53 @@
+package com.example.productos.cache;
+
+import com.example.productos.repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResincronizacionFiltroIdsTest {
+
+    /**
+     * Prueba que la resincronización marca los IDs creados fuera de esta instancia sin quitar
+     * los que ya estaban, y que deja el filtro listo aunque la carga inicial hubiera fallado.
+     */
+    @Test
+    void testMarcaLosIdsNoVistos() {
+        ProductoIdFilter filtro = new ProductoIdFilter(new SimpleMeterRegistry());
+        filtro.agregar(1L);
+        ProductoRepository repository = mock(ProductoRepository.class);
+        when(repository.streamIds()).thenReturn(Stream.of(2L, 70_000L));
+        ResincronizacionFiltroIds resincronizacion = new ResincronizacionFiltroIds(filtro, repository,
+                mock(PlatformTransactionManager.class), Duration.ofMinutes(1));
+
+        resincronizacion.resincronizar();
+
+        assertTrue(filtro.puedeExistir(1L));
+        assertTrue(filtro.puedeExistir(2L));
+        assertTrue(filtro.puedeExistir(70_000L));
+        assertFalse(filtro.puedeExistir(3L));
+    }
+
+    /**
+     * Prueba que si el recorrido falla el filtro sigue como estaba: sin la carga inicial, deja pasar todo.
+     */
+    @Test
+    void testFalloNoActivaElFiltro() {
+        ProductoIdFilter filtro = new ProductoIdFilter(new SimpleMeterRegistry());
+        ProductoRepository repository = mock(ProductoRepository.class);
+        when(repository.streamIds()).thenThrow(new QueryTimeoutException("timeout"));
+        ResincronizacionFiltroIds resincronizacion = new ResincronizacionFiltroIds(filtro, repository,
+                mock(PlatformTransactionManager.class), Duration.ofMinutes(1));
+
+        resincronizacion.resincronizar();
+
+        assertTrue(filtro.puedeExistir(3L));
+    }
+}
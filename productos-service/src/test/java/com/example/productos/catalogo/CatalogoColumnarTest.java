@@ -0,0 +1,161 @@
+package com.example.productos.catalogo;
+
+import com.example.productos.dto.EstadisticasCatalogoResponse;
+import com.example.productos.dto.ProductoPrecioResponse;
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.dto.RangoPreciosResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CatalogoColumnar.
+ * Se validan los agregados, el ranking por precio, el histograma y el mantenimiento por eventos.
+ */
+class CatalogoColumnarTest {
+
+    /**
+     * Prueba las estadísticas: el valor del inventario es la suma de precio por stock y
+     * el precio medio se redondea a céntimos.
+     */
+    @Test
+    void testEstadisticas() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        catalogo.recibir(new ProductoFila(1L, "Teclado", null, new BigDecimal("10.00"), 3));
+        catalogo.recibir(new ProductoFila(2L, "Ratón", null, new BigDecimal("2.5"), 4));
+        catalogo.recibir(new ProductoFila(3L, "Cable", null, new BigDecimal("0.01"), 0));
+
+        EstadisticasCatalogoResponse estadisticas = catalogo.estadisticas();
+
+        assertEquals(3, estadisticas.getProductos());
+        assertEquals(7, estadisticas.getStockTotal());
+        assertEquals(new BigDecimal("40.00"), estadisticas.getValorInventario());
+        assertEquals(new BigDecimal("0.01"), estadisticas.getPrecioMinimo());
+        assertEquals(new BigDecimal("10.00"), estadisticas.getPrecioMaximo());
+        assertEquals(new BigDecimal("4.17"), estadisticas.getPrecioMedio());
+    }
+
+    /**
+     * Prueba que un valor de inventario que no cabe en long se calcula igualmente sin perder precisión.
+     */
+    @Test
+    void testValorInventarioDesbordado() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        BigDecimal precio = new BigDecimal("90000000000.00");
+        catalogo.recibir(new ProductoFila(1L, "A", null, precio, Integer.MAX_VALUE));
+        catalogo.recibir(new ProductoFila(2L, "B", null, precio, Integer.MAX_VALUE));
+
+        BigDecimal esperado = precio.multiply(BigDecimal.valueOf(2L * Integer.MAX_VALUE));
+        assertEquals(0, esperado.compareTo(catalogo.estadisticas().getValorInventario()));
+    }
+
+    /**
+     * Prueba el ranking de los más caros: orden descendente por precio y, a igual precio, menor ID primero.
+     */
+    @Test
+    void testMasCaros() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        catalogo.recibir(new ProductoFila(1L, "A", null, new BigDecimal("5"), 1));
+        catalogo.recibir(new ProductoFila(2L, "B", null, new BigDecimal("50"), 1));
+        catalogo.recibir(new ProductoFila(3L, "C", null, new BigDecimal("20"), 1));
+        catalogo.recibir(new ProductoFila(4L, "D", null, new BigDecimal("50"), 1));
+
+        List<ProductoPrecioResponse> top = catalogo.masCaros(3);
+
+        assertEquals(List.of(2L, 4L, 3L), top.stream().map(ProductoPrecioResponse::getId).toList());
+        assertEquals(new BigDecimal("50.00"), top.get(0).getPrecio());
+        assertEquals(4, catalogo.masCaros(10).size());
+    }
+
+    /**
+     * Prueba el histograma: todos los productos caen en algún rango y el último incluye el máximo.
+     */
+    @Test
+    void testHistogramaPrecios() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        for (long id = 1; id <= 100; id++) {
+            catalogo.recibir(new ProductoFila(id, "P" + id, null, BigDecimal.valueOf(id), 1));
+        }
+
+        List<RangoPreciosResponse> histograma = catalogo.histogramaPrecios(4);
+
+        assertEquals(4, histograma.size());
+        assertEquals(100, histograma.stream().mapToLong(RangoPreciosResponse::getProductos).sum());
+        assertEquals(new BigDecimal("1.00"), histograma.get(0).getDesde());
+        assertEquals(new BigDecimal("100.00"), histograma.get(3).getHasta());
+        assertTrue(new CatalogoColumnar().histogramaPrecios(4).isEmpty());
+    }
+
+    /**
+     * Prueba que los eventos sustituyen lo cargado y que la carga inicial no pisa lo llegado por eventos.
+     */
+    @Test
+    void testEventosYCargaInicial() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        catalogo.alGuardarProducto(new ProductoGuardadoEvent(
+                ProductoResponse.builder().id(1L).precio(new BigDecimal("7")).stock(2).build()));
+        catalogo.recibir(new ProductoFila(1L, "Antiguo", null, new BigDecimal("1"), 1));
+        catalogo.recibir(new ProductoFila(2L, "Otro", null, new BigDecimal("3"), 1));
+        catalogo.cargaCompleta();
+
+        catalogo.alEliminarProducto(new ProductoEliminadoEvent(2L));
+
+        assertTrue(catalogo.isListo());
+        assertEquals(1, catalogo.tamano());
+        assertEquals(new BigDecimal("14.00"), catalogo.estadisticas().getValorInventario());
+    }
+
+    /**
+     * Prueba que una fila leída por la carga inicial antes de que se borrara el producto no
+     * vuelve a aparecer cuando llega después del evento de borrado.
+     */
+    @Test
+    void testBorradoDuranteLaCargaInicial() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        catalogo.recibir(new ProductoFila(1L, "Uno", null, new BigDecimal("1"), 1));
+        catalogo.alEliminarProducto(new ProductoEliminadoEvent(1L));
+        catalogo.alEliminarProducto(new ProductoEliminadoEvent(2L));
+        catalogo.recibir(new ProductoFila(2L, "Dos", null, new BigDecimal("2"), 1));
+        catalogo.recibir(new ProductoFila(3L, "Tres", null, new BigDecimal("3"), 1));
+        catalogo.cargaCompleta();
+
+        assertEquals(1, catalogo.tamano());
+        assertEquals(3L, catalogo.masCaros(5).getFirst().getId());
+    }
+
+    /**
+     * Prueba altas, cambios y bajas aleatorias contra un mapa de referencia, de modo que el
+     * movimiento del último producto al hueco y el índice de IDs quedan siempre coherentes.
+     */
+    @Test
+    void testOperacionesAleatoriasCoherentes() {
+        CatalogoColumnar catalogo = new CatalogoColumnar();
+        Map<Long, Integer> referencia = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(3_000);
+            if (random.nextInt(3) == 0) {
+                catalogo.eliminar(id);
+                referencia.remove(id);
+            } else {
+                int stock = random.nextInt(100);
+                catalogo.guardar(id, BigDecimal.ONE, stock, true);
+                referencia.put(id, stock);
+            }
+        }
+
+        EstadisticasCatalogoResponse estadisticas = catalogo.estadisticas();
+        long stockEsperado = referencia.values().stream().mapToLong(Integer::longValue).sum();
+        assertEquals(referencia.size(), estadisticas.getProductos());
+        assertEquals(stockEsperado, estadisticas.getStockTotal());
+        assertEquals(referencia.size(), catalogo.masCaros(5_000).size());
+    }
+}
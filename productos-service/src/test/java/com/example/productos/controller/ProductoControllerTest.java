@@ -1,20 +1,28 @@
 package com.example.productos.controller;
 
 import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoFiltro;
 import com.example.productos.dto.ProductoResponse;
+import com.example.productos.dto.ProductosPorIdsResponse;
+import com.example.productos.exception.PrecondicionFallidaException;
+import com.example.productos.jsonapi.JsonApiCollectionResponse;
 import com.example.productos.jsonapi.JsonApiResponse;
+import com.example.productos.pagination.PaginaCursor;
 import com.example.productos.service.ProductoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -60,9 +68,9 @@ class ProductoControllerTest {
         ProductoResponse response = new ProductoResponse();
         response.setId(2L);
 
-        when(service.actualizarProducto(2L, dto)).thenReturn(response);
+        when(service.actualizarProducto(2L, dto, null)).thenReturn(response);
 
-        ResponseEntity<JsonApiResponse<ProductoResponse>> result = controller.actualizarProducto(2L, dto);
+        ResponseEntity<JsonApiResponse<ProductoResponse>> result = controller.actualizarProducto(2L, dto, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals("productos", result.getBody().getData().getType());
@@ -83,7 +91,7 @@ class ProductoControllerTest {
 
         when(service.obtenerProductoPorId(3L)).thenReturn(response);
 
-        ResponseEntity<JsonApiResponse<ProductoResponse>> result = controller.obtenerProductoPorId(3L);
+        ResponseEntity<JsonApiResponse<ProductoResponse>> result = controller.obtenerProductoPorId(3L, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals("productos", result.getBody().getData().getType());
@@ -122,9 +130,9 @@ class ProductoControllerTest {
         p2.setId(6L);
 
         Page<ProductoResponse> page = new PageImpl<>(List.of(p1, p2));
-        when(service.listarTodosLosProductos(any(Pageable.class))).thenReturn(page);
+        when(service.listarTodosLosProductos(any(Pageable.class), any())).thenReturn(page);
 
-        ResponseEntity<?> result = controller.listarProductos(Pageable.unpaged());
+        ResponseEntity<?> result = controller.listarProductos(Pageable.unpaged(), null, null, null, null, null, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertTrue(result.getBody() instanceof java.util.Map);
@@ -132,6 +140,113 @@ class ProductoControllerTest {
         assertTrue(map.containsKey("data"));
     }
 
+    /**
+     * Prueba el listado por cursor.
+     * Verifica que no se usa la paginación clásica y que links.next lleva el cursor siguiente.
+     */
+    @Test
+    void testListarProductosPorCursor() {
+        ProductoService service = mock(ProductoService.class);
+        ProductoController controller = new ProductoController(service);
+
+        ProductoResponse p1 = new ProductoResponse();
+        p1.setId(5L);
+        Pageable pageable = PageRequest.of(0, 1);
+        when(service.listarProductosPorCursor(eq(""), eq(pageable), any(ProductoFiltro.class)))
+                .thenReturn(new PaginaCursor<>(List.of(p1), "abc"));
+
+        ResponseEntity<?> result = controller.listarProductos(pageable, "", null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        JsonApiCollectionResponse<?> body = (JsonApiCollectionResponse<?>) result.getBody();
+        assertEquals(1, body.getData().size());
+        assertEquals("/api/productos?size=1&page[after]=abc", body.getLinks().get("next"));
+        verify(service, never()).listarTodosLosProductos(any(), any());
+    }
+
+    /**
+     * Prueba que los filtros llegan al servicio y se repiten en links.next, ya que el cursor no los guarda.
+     */
+    @Test
+    void testListarProductosConFiltroPorCursor() {
+        ProductoService service = mock(ProductoService.class);
+        ProductoController controller = new ProductoController(service);
+        ProductoResponse p1 = new ProductoResponse();
+        p1.setId(5L);
+        Pageable pageable = PageRequest.of(0, 1);
+        ProductoFiltro filtro = new ProductoFiltro(new BigDecimal("10"), null, 2, "Cable USB");
+        when(service.listarProductosPorCursor("", pageable, filtro)).thenReturn(new PaginaCursor<>(List.of(p1), "abc"));
+
+        ResponseEntity<?> result = controller.listarProductos(pageable, "", null, new BigDecimal("10"), null, 2, "Cable USB");
+
+        JsonApiCollectionResponse<?> body = (JsonApiCollectionResponse<?>) result.getBody();
+        assertEquals("/api/productos?size=1&filter[precioMin]=10&filter[stockMin]=2&filter[nombrePrefix]=Cable+USB&page[after]=abc",
+                body.getLinks().get("next"));
+    }
+
+    /**
+     * Prueba la consulta de varios productos por ID.
+     * Verifica que la respuesta es una colección JSON:API y que los IDs inexistentes van en meta.
+     */
+    @Test
+    void testObtenerProductosPorIds() {
+        ProductoService service = mock(ProductoService.class);
+        ProductoController controller = new ProductoController(service);
+
+        ProductoResponse p1 = new ProductoResponse();
+        p1.setId(7L);
+
+        when(service.obtenerProductosPorIds(List.of(7L, 8L)))
+                .thenReturn(new ProductosPorIdsResponse(List.of(p1), List.of(8L)));
+
+        ResponseEntity<JsonApiCollectionResponse<ProductoResponse>> result = controller.obtenerProductosPorIds(List.of(7L, 8L));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(1, result.getBody().getData().size());
+        assertEquals("7", result.getBody().getData().get(0).getId());
+        assertEquals(List.of(8L), result.getBody().getMeta().get("idsNoEncontrados"));
+    }
+
+    /**
+     * Prueba la lectura condicional: con If-None-Match vigente responde 304 sin cargar
+     * el producto; con uno antiguo devuelve el cuerpo y el ETag actual.
+     */
+    @Test
+    void testObtenerProductoPorIdCondicional() {
+        ProductoService service = mock(ProductoService.class);
+        ProductoController controller = new ProductoController(service);
+        when(service.obtenerVersionProducto(4L)).thenReturn(3L);
+
+        ResponseEntity<JsonApiResponse<ProductoResponse>> noModificado = controller.obtenerProductoPorId(4L, "\"3\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, noModificado.getStatusCode());
+        assertEquals("\"3\"", noModificado.getHeaders().getETag());
+        assertNull(noModificado.getBody());
+        verify(service, never()).obtenerProductoPorId(any());
+
+        when(service.obtenerProductoPorId(4L)).thenReturn(ProductoResponse.builder().id(4L).version(3L).build());
+        ResponseEntity<JsonApiResponse<ProductoResponse>> modificado = controller.obtenerProductoPorId(4L, "W/\"2\"");
+
+        assertEquals(HttpStatus.OK, modificado.getStatusCode());
+        assertEquals("\"3\"", modificado.getHeaders().getETag());
+    }
+
+    /**
+     * Prueba que If-Match se traslada al servicio como versión esperada y que un ETag débil se rechaza.
+     */
+    @Test
+    void testActualizarProductoConIfMatch() {
+        ProductoService service = mock(ProductoService.class);
+        ProductoController controller = new ProductoController(service);
+        ProductoDTO dto = new ProductoDTO();
+        when(service.actualizarProducto(4L, dto, 3L)).thenReturn(ProductoResponse.builder().id(4L).version(4L).build());
+
+        ResponseEntity<JsonApiResponse<ProductoResponse>> result = controller.actualizarProducto(4L, dto, "\"3\"");
+
+        assertEquals("\"4\"", result.getHeaders().getETag());
+        assertThrows(PrecondicionFallidaException.class, () -> controller.actualizarProducto(4L, dto, "W/\"3\""));
+    }
+
     /**
      * Prueba el manejo de error cuando el producto no existe.
      * Verifica que se lanza una excepción con el mensaje esperado.
@@ -144,7 +259,7 @@ class ProductoControllerTest {
         when(service.obtenerProductoPorId(100L)).thenThrow(new RuntimeException("Producto no encontrado"));
 
         Exception exception = assertThrows(RuntimeException.class, () -> {
-            controller.obtenerProductoPorId(100L);
+            controller.obtenerProductoPorId(100L, null);
         });
 
         assertTrue(exception.getMessage().contains("Producto no encontrado"));
@@ -0,0 +1,90 @@
+package com.example.productos.repository;
+
+import com.example.productos.model.Producto;
+import com.example.productos.pagination.ProductoCursor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductoSpecificationsTest {
+
+    /**
+     * Prueba que el prefijo de nombre escapa los comodines de LIKE de SQL Server,
+     * de modo que se compara literalmente y sigue siendo un prefijo apto para el índice.
+     */
+    @Test
+    void testEscaparLike() {
+        assertEquals("Cable USB", ProductoSpecifications.escaparLike("Cable USB"));
+        assertEquals("100\\%", ProductoSpecifications.escaparLike("100%"));
+        assertEquals("a\\_b\\[c\\\\d", ProductoSpecifications.escaparLike("a_b[c\\d"));
+    }
+
+    /**
+     * Prueba que el predicado de búsqueda ascendente lleva la cota {@code campo >= valor}
+     * unida con AND a la condición (campo, id), para que el índice se recorra por rango.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDespuesDeAscendenteConCotaInicial() {
+        BigDecimal valor = new BigDecimal("10.50");
+        Root<Producto> root = mock(Root.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<Comparable<Object>> precio = mock(Path.class);
+        Path<Long> id = mock(Path.class);
+        when(root.<Comparable<Object>>get("precio")).thenReturn(precio);
+        when(root.<Long>get("id")).thenReturn(id);
+        Predicate cota = mock(Predicate.class);
+        Predicate busqueda = mock(Predicate.class);
+        Predicate resultado = mock(Predicate.class);
+        when(cb.greaterThanOrEqualTo(precio, (Comparable<Object>) (Comparable<?>) valor)).thenReturn(cota);
+        when(cb.or(any(), any())).thenReturn(busqueda);
+        when(cb.and(cota, busqueda)).thenReturn(resultado);
+
+        Predicate predicado = ProductoSpecifications
+                .despuesDe(new ProductoCursor("precio", Sort.Direction.ASC, 7L, valor))
+                .toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        assertSame(resultado, predicado);
+        verify(cb).greaterThan(precio, (Comparable<Object>) (Comparable<?>) valor);
+        verify(cb).greaterThan(id, 7L);
+        verify(cb, never()).lessThanOrEqualTo(any(), any(Comparable.class));
+    }
+
+    /**
+     * Prueba que en orden descendente la cota redundante es {@code campo <= valor}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDespuesDeDescendenteConCotaInicial() {
+        Root<Producto> root = mock(Root.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<Comparable<Object>> nombre = mock(Path.class);
+        Path<Long> id = mock(Path.class);
+        when(root.<Comparable<Object>>get("nombre")).thenReturn(nombre);
+        when(root.<Long>get("id")).thenReturn(id);
+        Predicate cota = mock(Predicate.class);
+        Predicate busqueda = mock(Predicate.class);
+        Predicate resultado = mock(Predicate.class);
+        when(cb.lessThanOrEqualTo(nombre, (Comparable<Object>) (Comparable<?>) "Ratón")).thenReturn(cota);
+        when(cb.or(any(), any())).thenReturn(busqueda);
+        when(cb.and(cota, busqueda)).thenReturn(resultado);
+
+        Predicate predicado = ProductoSpecifications
+                .despuesDe(new ProductoCursor("nombre", Sort.Direction.DESC, 7L, "Ratón"))
+                .toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        assertSame(resultado, predicado);
+        verify(cb).lessThan(id, 7L);
+        verify(cb, never()).greaterThanOrEqualTo(any(), any(Comparable.class));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.productos.search;
+
+import com.example.productos.catalogo.ProductoFila;
+import com.example.productos.dto.ProductoBusquedaResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductoSearchIndexTest {
+
+    private ProductoSearchIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new ProductoSearchIndex();
+        indice.indexar(1L, "Teclado mecánico", "Teclado con interruptores azules");
+        indice.indexar(2L, "Ratón inalámbrico", "Incluye receptor USB");
+        indice.indexar(3L, "Cable USB-C", "Cable trenzado de 2 metros");
+        indice.indexar(4L, "Hub", "Concentrador con cuatro puertos usb");
+    }
+
+    /**
+     * Prueba la coincidencia por prefijo sin distinguir mayúsculas ni acentos,
+     * puntuando más las coincidencias en el nombre y, a igualdad, el nombre más corto.
+     */
+    @Test
+    void testBuscarPorPrefijo() {
+        List<ProductoBusquedaResponse> resultados = indice.buscar("usb", 10);
+
+        assertEquals(List.of(3L, 4L, 2L), resultados.stream().map(ProductoBusquedaResponse::getId).toList());
+        assertEquals(List.of(1L), ids(indice.buscar("MECANI", 10)));
+        assertEquals(List.of(2L), ids(indice.buscar("raton inal", 10)));
+        assertTrue(indice.buscar("inexistente", 10).isEmpty());
+        assertTrue(indice.buscar("  ", 10).isEmpty());
+    }
+
+    /**
+     * Prueba que todos los términos deben coincidir y que se respeta el límite.
+     */
+    @Test
+    void testBuscarVariosTerminosYLimite() {
+        assertEquals(List.of(3L), ids(indice.buscar("cable usb", 10)));
+        assertEquals(1, indice.buscar("usb", 1).size());
+    }
+
+    /**
+     * Prueba que las modificaciones y bajas se reflejan en las búsquedas.
+     */
+    @Test
+    void testActualizarYEliminar() {
+        indice.indexar(1L, "Teclado compacto", "Sin teclado numérico");
+        assertTrue(indice.buscar("mecanico", 10).isEmpty());
+        assertEquals(List.of(1L), ids(indice.buscar("compacto", 10)));
+
+        indice.eliminar(3L);
+        assertEquals(List.of(4L, 2L), ids(indice.buscar("usb", 10)));
+        assertEquals(3, indice.tamano());
+    }
+
+    /**
+     * Prueba que los términos demasiado cortos solo coinciden con palabras completas.
+     */
+    @Test
+    void testTerminoCortoSoloPalabraCompleta() {
+        assertTrue(indice.buscar("ca", 10).isEmpty());
+        assertEquals(List.of(3L), ids(indice.buscar("de", 10)));
+        assertEquals(List.of(3L), ids(indice.buscar("cable 2", 10)));
+    }
+
+    /**
+     * Prueba que una fila leída por la carga inicial antes de que se borrara el producto no
+     * vuelve a indexarse cuando llega después del evento de borrado.
+     */
+    @Test
+    void testBorradoDuranteLaCargaInicial() {
+        ProductoSearchIndex enCarga = new ProductoSearchIndex();
+        enCarga.recibir(new ProductoFila(1L, "Monitor", null, BigDecimal.ONE, 1));
+        enCarga.eliminar(1L);
+        enCarga.eliminar(2L);
+        enCarga.recibir(new ProductoFila(2L, "Monitor curvo", null, BigDecimal.ONE, 1));
+        enCarga.recibir(new ProductoFila(3L, "Monitor plano", null, BigDecimal.ONE, 1));
+        enCarga.cargaCompleta();
+
+        assertEquals(List.of(3L), ids(enCarga.buscar("monitor", 10)));
+        assertEquals(1, enCarga.tamano());
+    }
+
+    private static List<Long> ids(List<ProductoBusquedaResponse> resultados) {
+        return resultados.stream().map(ProductoBusquedaResponse::getId).toList();
+    }
+}
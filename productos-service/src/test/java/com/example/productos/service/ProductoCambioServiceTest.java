@@ -0,0 +1,94 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ProductoCambioResponse;
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.event.ProductoEliminadoEvent;
+import com.example.productos.event.ProductoGuardadoEvent;
+import com.example.productos.model.Producto;
+import com.example.productos.model.ProductoCambio;
+import com.example.productos.pagination.PaginaCursor;
+import com.example.productos.repository.ProductoCambioRepository;
+import com.example.productos.repository.ProductoCambioRepository.CambioFila;
+import com.example.productos.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductoCambioServiceTest {
+
+    private ProductoCambioRepository productoCambioRepository;
+    private ProductoRepository productoRepository;
+    private ProductoCambioService productoCambioService;
+
+    @BeforeEach
+    void setUp() {
+        productoCambioRepository = mock(ProductoCambioRepository.class);
+        productoRepository = mock(ProductoRepository.class);
+        productoCambioService = new ProductoCambioService(productoCambioRepository, productoRepository);
+    }
+
+    /**
+     * Prueba que cada evento de producto deja un registro UPSERT o DELETE.
+     */
+    @Test
+    void testRegistrarCambios() {
+        productoCambioService.alGuardarProducto(new ProductoGuardadoEvent(ProductoResponse.builder().id(1L).build()));
+        productoCambioService.alEliminarProducto(new ProductoEliminadoEvent(2L));
+
+        ArgumentCaptor<ProductoCambio> cambios = ArgumentCaptor.forClass(ProductoCambio.class);
+        verify(productoCambioRepository, times(2)).save(cambios.capture());
+        assertEquals(ProductoCambio.Tipo.UPSERT, cambios.getAllValues().get(0).getTipo());
+        assertEquals(1L, cambios.getAllValues().get(0).getProductoId());
+        assertEquals(ProductoCambio.Tipo.DELETE, cambios.getAllValues().get(1).getTipo());
+    }
+
+    /**
+     * Prueba que de varios cambios del mismo producto solo se entrega el último, que los UPSERT
+     * llevan el estado actual y que el token siguiente es la última posición leída.
+     */
+    @Test
+    void testListarCambios() {
+        List<CambioFila> filas = List.of(
+                fila(11, 1L, "UPSERT"), fila(12, 2L, "UPSERT"), fila(13, 1L, "UPSERT"), fila(14, 2L, "DELETE"));
+        when(productoCambioRepository.buscarDesde(10L, 100)).thenReturn(filas);
+        when(productoRepository.findByIdIn(List.of(1L))).thenReturn(List.of(Producto.builder().id(1L).nombre("A").build()));
+
+        PaginaCursor<ProductoCambioResponse> pagina = productoCambioService.listarCambios("10", 100);
+
+        assertEquals(2, pagina.getContenido().size());
+        ProductoCambioResponse primero = pagina.getContenido().get(0);
+        assertEquals("13", primero.getToken());
+        assertEquals("A", primero.getProducto().getNombre());
+        ProductoCambioResponse segundo = pagina.getContenido().get(1);
+        assertEquals(ProductoCambio.Tipo.DELETE, segundo.getTipo());
+        assertNull(segundo.getProducto());
+        assertEquals("14", pagina.getSiguienteCursor());
+    }
+
+    /**
+     * Prueba que sin cambios nuevos se devuelve el mismo token y que un token inválido se rechaza.
+     */
+    @Test
+    void testListarCambiosSinNovedades() {
+        when(productoCambioRepository.buscarDesde(0L, 50)).thenReturn(List.of());
+
+        assertEquals("0", productoCambioService.listarCambios(null, 50).getSiguienteCursor());
+        assertThrows(IllegalArgumentException.class, () -> productoCambioService.listarCambios("abc", 50));
+        assertThrows(IllegalArgumentException.class, () -> productoCambioService.listarCambios("-1", 50));
+    }
+
+    private static CambioFila fila(long posicion, Long productoId, String tipo) {
+        CambioFila fila = mock(CambioFila.class);
+        when(fila.getPosicion()).thenReturn(posicion);
+        when(fila.getProductoId()).thenReturn(productoId);
+        when(fila.getTipo()).thenReturn(tipo);
+        when(fila.getFecha()).thenReturn(Instant.EPOCH);
+        return fila;
+    }
+}
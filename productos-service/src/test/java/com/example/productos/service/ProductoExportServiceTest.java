@@ -0,0 +1,49 @@
+package com.example.productos.service;
+
+import com.example.productos.model.Producto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductoExportServiceTest {
+
+    /**
+     * Prueba que cada producto se escribe como una línea JSON y se desacopla
+     * del contexto de persistencia después de escribirlo.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportarNdjson() {
+        EntityManager entityManager = mock(EntityManager.class);
+        TypedQuery<Producto> query = mock(TypedQuery.class);
+        Producto p1 = Producto.builder().id(1L).nombre("A").precio(new BigDecimal("1.50")).stock(3).build();
+        Producto p2 = Producto.builder().id(2L).nombre("B").precio(new BigDecimal("2.00")).stock(0).build();
+
+        when(entityManager.createQuery(anyString(), eq(Producto.class))).thenReturn(query);
+        when(query.setHint(anyString(), any())).thenReturn(query);
+        when(query.getResultStream()).thenReturn(Stream.of(p1, p2));
+
+        ProductoExportService service = new ProductoExportService(entityManager,
+                mock(PlatformTransactionManager.class), new ObjectMapper());
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        service.exportarNdjson(salida);
+
+        assertEquals("{\"id\":1,\"nombre\":\"A\",\"descripcion\":null,\"precio\":1.50,\"stock\":3}\n"
+                        + "{\"id\":2,\"nombre\":\"B\",\"descripcion\":null,\"precio\":2.00,\"stock\":0}\n",
+                salida.toString(StandardCharsets.UTF_8));
+        verify(entityManager).detach(p1);
+        verify(entityManager).detach(p2);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ImportacionResponse;
+import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoLoteResultado;
+import com.example.productos.importacion.FormatoImportacion;
+import com.example.productos.importacion.ImportacionProductos;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ProductoImportServiceTest {
+
+    private ProductoLoteService productoLoteService;
+    private ProductoImportService productoImportService;
+    private List<ProductoDTO> guardados;
+
+    @BeforeEach
+    void setUp() {
+        productoLoteService = mock(ProductoLoteService.class);
+        productoImportService = new ProductoImportService(productoLoteService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                new SimpleAsyncTaskExecutorBuilder(), 1);
+        ReflectionTestUtils.setField(productoImportService, "tamanoBloque", 2);
+        ReflectionTestUtils.setField(productoImportService, "capacidadCola", 1);
+
+        guardados = Collections.synchronizedList(new ArrayList<>());
+        when(productoLoteService.crearProductos(anyList())).thenAnswer(invocation -> {
+            List<ProductoDTO> bloque = invocation.getArgument(0);
+            guardados.addAll(bloque);
+            List<ProductoLoteResultado> resultados = new ArrayList<>();
+            for (int i = 0; i < bloque.size(); i++) {
+                resultados.add(new ProductoLoteResultado(i, ProductoLoteResultado.Estado.CREADO, (long) i, List.of()));
+            }
+            return resultados;
+        });
+    }
+
+    /**
+     * Prueba la importación CSV: campos entre comillas, registros inválidos que no detienen
+     * la importación y guardado por bloques.
+     */
+    @Test
+    void testImportarCsv() throws Exception {
+        String csv = """
+                nombre,precio,stock,descripcion
+                Laptop,1200.50,10,"Equipo ""pro"", 16GB"
+                ,10,1,sin nombre
+                Mouse,abc,1,precio mal
+                Teclado,30,5,
+                Monitor,300,2,"Línea 1
+                Línea 2"
+                """;
+
+        ImportacionResponse estado = importar(csv, FormatoImportacion.CSV);
+
+        assertEquals("COMPLETADA", estado.getEstado());
+        assertEquals(5, estado.getRegistrosLeidos());
+        assertEquals(3, estado.getRegistrosValidos());
+        assertEquals(2, estado.getRegistrosInvalidos());
+        assertEquals(3, estado.getProductosGuardados());
+        assertEquals(2, estado.getBloquesGuardados());
+        assertEquals("Equipo \"pro\", 16GB", guardados.get(0).getDescripcion());
+        assertEquals("Línea 1\nLínea 2", guardados.get(2).getDescripcion());
+        assertTrue(estado.getErrores().stream().anyMatch(e -> e.startsWith("Línea 3:")));
+    }
+
+    /**
+     * Prueba que un bloque que falla al guardarse se informa y no aborta el resto.
+     */
+    @Test
+    void testBloqueFallidoNoAbortaImportacion() throws Exception {
+        AtomicInteger llamadas = new AtomicInteger();
+        when(productoLoteService.crearProductos(anyList())).thenAnswer(invocation -> {
+            if (llamadas.incrementAndGet() == 1) {
+                throw new IllegalStateException("deadlock");
+            }
+            List<ProductoDTO> bloque = invocation.getArgument(0);
+            return bloque.stream()
+                    .map(p -> new ProductoLoteResultado(0, ProductoLoteResultado.Estado.CREADO, 1L, List.of()))
+                    .toList();
+        });
+        String ndjson = """
+                {"nombre":"A","precio":1}
+                {"nombre":"B","precio":2}
+                no es json
+                {"nombre":"C","precio":3}
+                """;
+
+        ImportacionResponse estado = importar(ndjson, FormatoImportacion.NDJSON);
+
+        assertEquals("COMPLETADA", estado.getEstado());
+        assertEquals(1, estado.getBloquesFallidos());
+        assertEquals(1, estado.getBloquesGuardados());
+        assertEquals(1, estado.getProductosGuardados());
+        assertEquals(1, estado.getRegistrosInvalidos());
+        assertTrue(estado.getErrores().stream().anyMatch(e -> e.contains("Líneas 1-2")));
+    }
+
+    private ImportacionResponse importar(String contenido, FormatoImportacion formato) throws Exception {
+        ImportacionProductos importacion = productoImportService.iniciarImportacion(
+                new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato);
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!importacion.isTerminada() && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        return productoImportService.obtenerImportacion(importacion.getId());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.productos.service;
+
+import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoLoteActualizacionDTO;
+import com.example.productos.dto.ProductoLoteResultado;
+import com.example.productos.dto.ProductoLoteResultado.Estado;
+import com.example.productos.dto.ProductoResponse;
+import com.example.productos.event.ProductoEventPublisher;
+import com.example.productos.model.Producto;
+import com.example.productos.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ProductoLoteServiceTest {
+
+    private ProductoRepository productoRepository;
+    private EntityManager entityManager;
+    private ProductoEventPublisher eventPublisher;
+    private ProductoLoteService productoLoteService;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository = mock(ProductoRepository.class);
+        entityManager = mock(EntityManager.class);
+        eventPublisher = mock(ProductoEventPublisher.class);
+        productoLoteService = new ProductoLoteService(productoRepository, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher);
+        ReflectionTestUtils.setField(productoLoteService, "tamanoLote", 2);
+    }
+
+    /**
+     * Prueba que los productos válidos se guardan en lotes del tamaño configurado
+     * y que los inválidos se informan sin interrumpir el resto.
+     */
+    @Test
+    void testCrearProductosPorLote() {
+        AtomicLong secuencia = new AtomicLong();
+        when(productoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Producto> productos = new ArrayList<>(invocation.getArgument(0));
+            productos.forEach(p -> p.setId(secuencia.incrementAndGet()));
+            return productos;
+        });
+
+        List<ProductoDTO> productos = List.of(
+                producto("A"), producto(""), producto("B"), producto("C"));
+
+        List<ProductoLoteResultado> resultados = productoLoteService.crearProductos(productos);
+
+        assertEquals(4, resultados.size());
+        assertEquals(Estado.CREADO, resultados.get(0).getEstado());
+        assertEquals(1L, resultados.get(0).getId());
+        assertEquals(Estado.INVALIDO, resultados.get(1).getEstado());
+        assertFalse(resultados.get(1).getErrores().isEmpty());
+        assertEquals(2L, resultados.get(2).getId());
+        assertEquals(3L, resultados.get(3).getId());
+        // 3 productos válidos con lotes de 2 -> 2 lotes
+        verify(productoRepository, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    /**
+     * Prueba la actualización por lote, incluyendo productos inexistentes, y que el evento de
+     * cada producto modificado se publica tras el flush con la version que este le asigna.
+     */
+    @Test
+    void testActualizarProductosPorLote() {
+        Producto existente = new Producto();
+        existente.setId(10L);
+        existente.setNombre("Viejo");
+        existente.setVersion(3L);
+        when(productoRepository.findByIdIn(any())).thenReturn(List.of(existente));
+        doAnswer(invocation -> {
+            existente.setVersion(4L);
+            return null;
+        }).when(entityManager).flush();
+
+        List<ProductoLoteResultado> resultados = productoLoteService.actualizarProductos(List.of(
+                new ProductoLoteActualizacionDTO(10L, producto("Nuevo")),
+                new ProductoLoteActualizacionDTO(11L, producto("Otro"))));
+
+        assertEquals(Estado.ACTUALIZADO, resultados.get(0).getEstado());
+        assertEquals("Nuevo", existente.getNombre());
+        assertEquals(Estado.NO_ENCONTRADO, resultados.get(1).getEstado());
+        verify(productoRepository, never()).findById(any());
+        verify(entityManager, times(1)).flush();
+        ArgumentCaptor<ProductoResponse> evento = ArgumentCaptor.forClass(ProductoResponse.class);
+        verify(eventPublisher).publishProductoGuardadoEvent(evento.capture());
+        assertEquals(10L, evento.getValue().getId());
+        assertEquals("Nuevo", evento.getValue().getNombre());
+        assertEquals(4L, evento.getValue().getVersion());
+    }
+
+    /**
+     * Prueba que se rechaza un lote que supera el máximo configurado.
+     */
+    @Test
+    void testLoteDemasiadoGrande() {
+        ReflectionTestUtils.setField(productoLoteService, "maximoItems", 1);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                productoLoteService.crearProductos(List.of(producto("A"), producto("B"))));
+        verifyNoInteractions(productoRepository);
+    }
+
+    private ProductoDTO producto(String nombre) {
+        return new ProductoDTO(nombre, "desc", new BigDecimal("10.00"), 5);
+    }
+}
@@ -1,13 +1,37 @@
 package com.example.productos.service;
 
+import com.example.productos.cache.ProductoCache;
+import com.example.productos.cache.ProductoIdFilter;
 import com.example.productos.dto.ProductoDTO;
+import com.example.productos.dto.ProductoFiltro;
+import com.example.productos.dto.ProductoParcial;
 import com.example.productos.dto.ProductoResponse;
+import com.example.productos.dto.ProductosPorIdsResponse;
+import com.example.productos.event.ProductoEventPublisher;
+import com.example.productos.exception.PrecondicionFallidaException;
+import com.example.productos.exception.ResourceNotFoundException;
 import com.example.productos.model.Producto;
+import com.example.productos.pagination.PaginaCursor;
+import com.example.productos.pagination.ProductoCursor;
 import com.example.productos.repository.ProductoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -15,12 +39,19 @@ import static org.mockito.Mockito.*;
 class ProductoServiceTest {
 
     private ProductoRepository productoRepository;
+    private ProductoEventPublisher eventPublisher;
+    private ProductoIdFilter productoIdFilter;
+    private SimpleMeterRegistry meterRegistry;
     private ProductoService productoService;
 
     @BeforeEach
     void setUp() {
         productoRepository = mock(ProductoRepository.class);
-        productoService = new ProductoService(productoRepository);
+        eventPublisher = mock(ProductoEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        productoIdFilter = new ProductoIdFilter(meterRegistry);
+        productoService = new ProductoService(productoRepository, eventPublisher, new ProductoCache(100, Duration.ofMinutes(1)),
+                productoIdFilter, Validation.buildDefaultValidatorFactory().getValidator());
     }
 
     /**
@@ -41,6 +72,7 @@ class ProductoServiceTest {
         assertNotNull(response);
         assertEquals(1L, response.getId());
         assertEquals("Test", response.getNombre());
+        verify(eventPublisher).publishProductoGuardadoEvent(response);
     }
 
     /**
@@ -61,6 +93,94 @@ class ProductoServiceTest {
         assertEquals("Producto 2", response.getNombre());
     }
 
+    /**
+     * Prueba que las lecturas repetidas salen de la caché y que actualizar y eliminar la invalidan.
+     */
+    @Test
+    void testObtenerProductoPorIdUsaCache() {
+        Producto producto = Producto.builder().id(5L).nombre("Original").build();
+        when(productoRepository.findById(5L)).thenReturn(Optional.of(producto));
+
+        productoService.obtenerProductoPorId(5L);
+        productoService.obtenerProductoPorId(5L);
+        verify(productoRepository, times(1)).findById(5L);
+
+        ProductoDTO dto = new ProductoDTO();
+        dto.setNombre("Modificado");
+        when(productoRepository.saveAndFlush(any(Producto.class))).thenAnswer(inv -> inv.getArgument(0));
+        productoService.actualizarProducto(5L, dto, null);
+        assertEquals("Modificado", productoService.obtenerProductoPorId(5L).getNombre());
+
+        when(productoRepository.eliminarPorId(5L)).thenReturn(1);
+        productoService.eliminarProducto(5L);
+        when(productoRepository.findById(5L)).thenReturn(Optional.empty());
+        assertThrows(RuntimeException.class, () -> productoService.obtenerProductoPorId(5L));
+    }
+
+    /**
+     * Prueba que la actualización con una versión esperada distinta de la actual se rechaza sin escribir.
+     */
+    @Test
+    void testActualizarProductoVersionDistinta() {
+        Producto producto = Producto.builder().id(6L).nombre("Original").version(2L).build();
+        when(productoRepository.findById(6L)).thenReturn(Optional.of(producto));
+
+        assertThrows(PrecondicionFallidaException.class,
+                () -> productoService.actualizarProducto(6L, new ProductoDTO(), 1L));
+        verify(productoRepository, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishProductoGuardadoEvent(any());
+    }
+
+    /**
+     * Prueba que el parche solo envía al repositorio los campos presentes, incluidos los puestos a null.
+     */
+    @Test
+    void testParchearProducto() throws Exception {
+        Producto actualizado = Producto.builder().id(7L).nombre("Igual").precio(new BigDecimal("12.50")).version(4L).build();
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        cambios.put("precio", new BigDecimal("12.5"));
+        cambios.put("descripcion", null);
+        when(productoRepository.actualizarCampos(7L, cambios, 3L)).thenReturn(Optional.of(actualizado));
+
+        ProductoResponse response = productoService.parchearProducto(7L,
+                new ObjectMapper().readTree("{\"precio\": 12.50, \"descripcion\": null}"), 3L);
+
+        assertEquals(4L, response.getVersion());
+        verify(productoRepository, never()).findById(any());
+        verify(eventPublisher).publishProductoGuardadoEvent(response);
+    }
+
+    /**
+     * Prueba que el parche rechaza campos desconocidos, tipos incorrectos y valores inválidos,
+     * y distingue entre producto inexistente y versión obsoleta.
+     */
+    @Test
+    void testParchearProductoErrores() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        assertThrows(IllegalArgumentException.class, () -> productoService.parchearProducto(7L, mapper.readTree("{\"id\": 9}"), null));
+        assertThrows(IllegalArgumentException.class, () -> productoService.parchearProducto(7L, mapper.readTree("{\"stock\": \"diez\"}"), null));
+        assertThrows(IllegalArgumentException.class, () -> productoService.parchearProducto(7L, mapper.readTree("{\"nombre\": null}"), null));
+        assertThrows(IllegalArgumentException.class, () -> productoService.parchearProducto(7L, mapper.readTree("{\"precio\": -1}"), null));
+
+        when(productoRepository.actualizarCampos(eq(7L), any(), any())).thenReturn(Optional.empty());
+        when(productoRepository.existsById(7L)).thenReturn(true);
+        assertThrows(PrecondicionFallidaException.class, () -> productoService.parchearProducto(7L, mapper.readTree("{\"stock\": 1}"), 3L));
+        when(productoRepository.existsById(7L)).thenReturn(false);
+        assertThrows(ResourceNotFoundException.class, () -> productoService.parchearProducto(7L, mapper.readTree("{\"stock\": 1}"), 3L));
+    }
+
+    /**
+     * Prueba que la eliminación es una única sentencia y que sin filas afectadas informa que no existe.
+     */
+    @Test
+    void testEliminarProductoInexistente() {
+        when(productoRepository.eliminarPorId(8L)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> productoService.eliminarProducto(8L));
+        verify(productoRepository, never()).findById(any());
+        verify(eventPublisher, never()).publishProductoEliminadoEvent(any());
+    }
+
     /**
      * Prueba el manejo de error cuando el producto no existe.
      */
@@ -75,5 +195,146 @@ class ProductoServiceTest {
         assertTrue(exception.getMessage().contains("no encontrado"));
     }
 
+    /**
+     * Prueba que, cargado el filtro de IDs, un ID inexistente se responde sin consultar
+     * la base de datos y que los falsos positivos quedan contabilizados.
+     */
+    @Test
+    void testObtenerProductoPorIdFiltroIds() {
+        productoIdFilter.agregar(1L);
+        productoIdFilter.cargaCompleta();
+        when(productoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> productoService.obtenerProductoPorId(2L));
+        assertThrows(ResourceNotFoundException.class, () -> productoService.obtenerProductoPorId(1L));
+
+        verify(productoRepository, never()).findById(2L);
+        verify(productoRepository, never()).existsById(2L);
+        assertEquals(1, meterRegistry.get("productos.filtro.ids").tag("resultado", "evitada").counter().count());
+        assertEquals(1, meterRegistry.get("productos.filtro.ids").tag("resultado", "falso_positivo").counter().count());
+    }
+
+    /**
+     * Prueba la consulta de varios productos por ID en una sola consulta IN,
+     * conservando el orden pedido e informando los IDs inexistentes.
+     */
+    @Test
+    void testObtenerProductosPorIds() {
+        Producto p1 = new Producto();
+        p1.setId(1L);
+        Producto p3 = new Producto();
+        p3.setId(3L);
+
+        when(productoRepository.findByIdIn(List.of(3L, 2L, 1L))).thenReturn(List.of(p1, p3));
+
+        ProductosPorIdsResponse response = productoService.obtenerProductosPorIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(3L, 1L), response.getProductos().stream().map(ProductoResponse::getId).toList());
+        assertEquals(List.of(2L), response.getIdsNoEncontrados());
+        verify(productoRepository, times(1)).findByIdIn(any());
+        verify(productoRepository, never()).findById(any());
+    }
+
+    /**
+     * Prueba el listado por cursor: se pide una fila de más para detectar la página
+     * siguiente y el cursor devuelto apunta a la última fila entregada.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListarProductosPorCursor() {
+        Producto p1 = Producto.builder().id(1L).nombre("A").precio(new BigDecimal("5.00")).build();
+        Producto p2 = Producto.builder().id(2L).nombre("B").precio(new BigDecimal("7.50")).build();
+        Producto p3 = Producto.builder().id(3L).nombre("C").precio(new BigDecimal("9.00")).build();
+        when(productoRepository.findBy(any(Specification.class), any())).thenReturn(List.of(p1, p2, p3));
+
+        PaginaCursor<ProductoResponse> pagina = productoService.listarProductosPorCursor(null,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "precio")), null);
+
+        assertEquals(2, pagina.getContenido().size());
+        ProductoCursor siguiente = ProductoCursor.decodificar(pagina.getSiguienteCursor());
+        assertEquals("precio", siguiente.getCampo());
+        assertEquals(Sort.Direction.DESC, siguiente.getDireccion());
+        assertEquals(2L, siguiente.getUltimoId());
+        assertEquals(new BigDecimal("7.50"), siguiente.getUltimoValor());
+        verify(productoRepository, never()).findAll(any(org.springframework.data.domain.Pageable.class));
+    }
+
+    /**
+     * Prueba que fields[productos] se traduce en una consulta solo de las columnas pedidas
+     * (más el ID) y que la respuesta no incluye las demás.
+     */
+    @Test
+    void testListarProductosConCampos() {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("id", 1L);
+        fila.put("nombre", "A");
+        fila.put("precio", new BigDecimal("5.00"));
+        when(productoRepository.buscarCampos(List.of("id", "nombre", "precio"), null, Sort.unsorted(), 0, 20))
+                .thenReturn(List.of(fila));
+
+        Page<ProductoParcial> pagina = productoService.listarProductosConCampos(PageRequest.of(0, 20), Set.of("precio", "nombre"), null);
+
+        assertEquals(1, pagina.getTotalElements());
+        assertEquals(1L, pagina.getContent().get(0).getId());
+        assertEquals(Set.of("nombre", "precio"), pagina.getContent().get(0).getAtributos().keySet());
+        verify(productoRepository, never()).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(productoRepository, never()).count();
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.listarProductosConCampos(PageRequest.of(0, 20), Set.of("version"), null));
+    }
+
+    /**
+     * Prueba que el listado por cursor con campos lee también la columna del orden para el cursor
+     * siguiente, aunque no se devuelva.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListarProductosPorCursorConCampos() {
+        Map<String, Object> f1 = new LinkedHashMap<>(Map.of("id", 1L, "precio", new BigDecimal("5.00")));
+        Map<String, Object> f2 = new LinkedHashMap<>(Map.of("id", 2L, "precio", new BigDecimal("7.50")));
+        when(productoRepository.buscarCampos(eq(List.of("id", "precio")), any(Specification.class), any(Sort.class), eq(0L), eq(2)))
+                .thenReturn(List.of(f1, f2));
+
+        PaginaCursor<ProductoParcial> pagina = productoService.listarProductosPorCursor(null,
+                PageRequest.of(0, 1, Sort.by("precio")), Set.of("id"), null);
+
+        assertEquals(Set.of("id"), pagina.getContenido().get(0).getAtributos().keySet());
+        ProductoCursor siguiente = ProductoCursor.decodificar(pagina.getSiguienteCursor());
+        assertEquals(1L, siguiente.getUltimoId());
+        assertEquals(new BigDecimal("5.00"), siguiente.getUltimoValor());
+    }
+
+    /**
+     * Prueba que los filtros se aplican como especificación en la consulta paginada
+     * y que un rango de precios invertido se rechaza.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListarProductosConFiltro() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(productoRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(Producto.builder().id(1L).nombre("Cable").build())));
+
+        Page<ProductoResponse> pagina = productoService.listarTodosLosProductos(pageable,
+                ProductoFiltro.builder().nombrePrefix("Cab").stockMin(1).build());
+
+        assertEquals(1, pagina.getTotalElements());
+        verify(productoRepository, never()).findAll(pageable);
+        assertThrows(IllegalArgumentException.class, () -> productoService.listarTodosLosProductos(pageable,
+                ProductoFiltro.builder().precioMin(new BigDecimal("10")).precioMax(new BigDecimal("5")).build()));
+    }
+
+    /**
+     * Prueba que el cursor conserva nombres con el carácter separador y rechaza cursores manipulados.
+     */
+    @Test
+    void testCursorCodificacion() {
+        ProductoCursor cursor = new ProductoCursor("nombre", Sort.Direction.ASC, 9L, "Cable | USB");
+        assertEquals(cursor, ProductoCursor.decodificar(cursor.codificar()));
+        assertThrows(IllegalArgumentException.class, () -> ProductoCursor.decodificar("no-es-un-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> productoService.listarProductosPorCursor(null,
+                PageRequest.of(0, 2, Sort.by("descripcion")), null));
+    }
+
     // Puedes agregar más pruebas para actualizar, eliminar, etc.
 }
\ No newline at end of file